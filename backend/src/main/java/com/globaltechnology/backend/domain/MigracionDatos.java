@@ -0,0 +1,27 @@
+package com.globaltechnology.backend.domain;
+
+import jakarta.persistence.*;
+import lombok.*;
+import java.time.Instant;
+
+/**
+ * Corrección de datos que ya se aplicó sobre esta base. El esquema lo arma
+ * Hibernate, pero los arreglos de datos existentes corren una sola vez y
+ * quedan registrados acá.
+ */
+@Entity
+@Table(name = "migraciones_datos")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@EqualsAndHashCode(of = "nombre")
+public class MigracionDatos {
+  @Id
+  @Column(name = "nombre", length = 80)
+  private String nombre;
+
+  @Column(name = "aplicada", nullable = false)
+  private Instant aplicada;
+}
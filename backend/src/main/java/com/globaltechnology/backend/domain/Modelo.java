@@ -40,4 +40,8 @@ public class Modelo {
 
   @Column(name = "requiere_capacidad", nullable = false)
   private boolean requiereCapacidad;
+
+  // Hasta cuánto stock se considera bajo; nulo usa app.stock.bajo-umbral.
+  @Column(name = "stock_minimo")
+  private Integer stockMinimo;
 }
@@ -6,7 +6,7 @@ import java.time.Instant;
 
 @Entity
 @Table(name = "movimientos_inventario", indexes = {
-    @Index(name = "idx_mov_variante", columnList = "variante_id"),
+    @Index(name = "idx_mov_variante_fecha", columnList = "variante_id, fecha"),
     @Index(name = "idx_mov_unidad", columnList = "unidad_id"),
     @Index(name = "idx_mov_fecha", columnList = "fecha")
 })
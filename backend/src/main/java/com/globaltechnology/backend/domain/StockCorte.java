@@ -0,0 +1,36 @@
+package com.globaltechnology.backend.domain;
+
+import jakarta.persistence.*;
+import lombok.*;
+import java.time.Instant;
+
+/**
+ * Saldo del libro de movimientos de una variante a la fecha de un corte: la
+ * suma de {@code cantidad} de sus movimientos anteriores a {@code fecha}. Solo
+ * hay fila en los cortes en que la variante tuvo movimientos; en los demás
+ * vale la del último corte anterior.
+ */
+@Entity
+@Table(name = "stock_cortes", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_corte_variante_fecha", columnNames = { "variante_id", "fecha" })
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@EqualsAndHashCode(of = "id")
+public class StockCorte {
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  private Long id;
+
+  @Column(name = "variante_id", nullable = false)
+  private Long varianteId;
+
+  @Column(nullable = false)
+  private Instant fecha;
+
+  @Column(name = "saldo", nullable = false)
+  private long saldo;
+}
@@ -10,7 +10,7 @@ import lombok.*;
 
 @Entity
 @Table(name = "unidades", indexes = {
-    @Index(name = "idx_unidad_variante", columnList = "variante_id"),
+    @Index(name = "idx_unidad_variante_estado", columnList = "variante_id, estado_stock"),
     @Index(name = "idx_unidad_estado", columnList = "estado_stock")
 })
 @Getter
@@ -0,0 +1,36 @@
+package com.globaltechnology.backend.domain;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * Stock materializado de una variante. {@code nuevos} y {@code usados} cuentan
+ * las unidades EN_STOCK; {@code cantidad} es la suma del libro de movimientos,
+ * que es el stock de las variantes que no trackean unidad.
+ */
+@Entity
+@Table(name = "variante_stock")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@EqualsAndHashCode(of = "varianteId")
+public class VarianteStock {
+  @Id
+  @Column(name = "variante_id")
+  private Long varianteId;
+
+  @Column(name = "nuevos", nullable = false)
+  private long nuevos;
+
+  @Column(name = "usados", nullable = false)
+  private long usados;
+
+  @Column(name = "cantidad", nullable = false)
+  private long cantidad;
+
+  public long disponible(boolean trackeaUnidad) {
+    return trackeaUnidad ? nuevos + usados : cantidad;
+  }
+}
@@ -0,0 +1,7 @@
+package com.globaltechnology.backend.repository;
+
+import com.globaltechnology.backend.domain.MigracionDatos;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface MigracionDatosRepository extends JpaRepository<MigracionDatos, String> {
+}
@@ -1,10 +1,14 @@
 package com.globaltechnology.backend.repository;
 
 import com.globaltechnology.backend.domain.Modelo;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface ModeloRepository extends JpaRepository<Modelo, Long> {
 
@@ -14,6 +18,35 @@ public interface ModeloRepository extends JpaRepository<Modelo, Long> {
 
   List<Modelo> findAllByMarca_Id(Long marcaId);
 
+  @Query("""
+        select m.id as id,
+               m.nombre as nombre,
+               cat.id as categoriaId,
+               cat.nombre as categoriaNombre,
+               m.trackeaUnidad as trackeaUnidad
+        from Modelo m
+        join m.categoria cat
+        where (:categoriaId is null or m.categoria.id = :categoriaId)
+          and (:marcaId is null or m.marca.id = :marcaId)
+        order by lower(m.nombre), m.id
+      """)
+  @QueryHints({
+      @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+      @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500") })
+  Stream<ModeloTablaRow> streamTabla(Long categoriaId, Long marcaId);
+
+  interface ModeloTablaRow {
+    Long getId();
+
+    String getNombre();
+
+    Long getCategoriaId();
+
+    String getCategoriaNombre();
+
+    boolean isTrackeaUnidad();
+  }
+
   boolean existsByMarca_IdAndNombreIgnoreCase(Long marcaId, String nombre);
 
   boolean existsByMarca_IdAndNombreIgnoreCaseAndIdNot(Long marcaId, String nombre, Long excludeId);
@@ -44,24 +77,4 @@ public interface ModeloRepository extends JpaRepository<Modelo, Long> {
 
     Long getStock();
   }
-
-  @Query("""
-        select m.id as modeloId,
-               m.nombre as nombre,
-               coalesce(
-                 sum(
-                   case
-                     when u.estadoStock = com.globaltechnology.backend.domain.EstadoStock.EN_STOCK
-                     then 1
-                     else 0
-                   end
-                 ), 0
-               ) as stock
-        from Modelo m
-          left join Unidad u
-            on u.variante.modelo = m
-        where m.trackeaUnidad = true
-        group by m.id, m.nombre
-      """)
-  List<ModeloStockProjection> findStockActualPorModeloTrackeado();
 }
@@ -1,67 +1,51 @@
 package com.globaltechnology.backend.repository;
 
 import com.globaltechnology.backend.domain.MovimientoInventario;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.jpa.repository.JpaRepository;
 
-import java.util.Collection;
+import java.time.Instant;
 import java.util.List;
 
 public interface MovimientoInventarioRepository extends JpaRepository<MovimientoInventario, Long> {
 
+  void deleteByVariante_Id(Long varianteId);
+
+  // Las ventas se guardaban con cantidad positiva; ver
+  // CorreccionVentasPositivas.
+  @Modifying
   @Query("""
-        select coalesce(sum(m.cantidad), 0)
+        update MovimientoInventario m
+        set m.cantidad = -m.cantidad
+        where m.tipo = com.globaltechnology.backend.domain.TipoMovimiento.VENTA
+          and m.refTipo = 'venta'
+          and m.cantidad > 0
+      """)
+  int invertirVentasPositivas();
+
+  @Query("""
+        select m
         from MovimientoInventario m
-        where m.variante.id = :varianteId
+        where m.unidad.imei = :imei
+        order by m.fecha, m.id
       """)
-  Integer stockNoTrackeadoDeVariante(Long varianteId);
+  List<MovimientoInventario> findByUnidadImei(String imei);
 
+  // Movimientos con fecha en [desde, hasta); sin desde, desde el principio.
   @Query("""
-        select m.variante.id as varianteId, coalesce(sum(m.cantidad), 0) as stock
+        select m.variante.id as varianteId,
+               sum(m.cantidad) as cantidad
         from MovimientoInventario m
-        where m.variante.id in :varianteIds
+        where (:desde is null or m.fecha >= :desde)
+          and m.fecha < :hasta
         group by m.variante.id
       """)
-  List<StockMovByVarianteRow> stockNoTrackeadoPorVariante(Collection<Long> varianteIds);
-
-  void deleteByVariante_Id(Long varianteId);
+  List<VarianteCantidadRow> cantidadesPorVariante(Instant desde, Instant hasta);
 
-  interface StockMovByVarianteRow {
+  interface VarianteCantidadRow {
     Long getVarianteId();
 
-    Integer getStock();
+    Long getCantidad();
   }
-
-  public interface StockMovModeloProjection {
-    Long getModeloId();
-
-    String getNombre();
-
-    Long getStock();
-  }
-
-  @Query("""
-        select mo.id as modeloId,
-               mo.nombre as nombre,
-               coalesce(
-                 sum(
-                   case
-                     when mov.tipo = com.globaltechnology.backend.domain.TipoMovimiento.ENTRADA
-                       then mov.cantidad
-                     when mov.tipo = com.globaltechnology.backend.domain.TipoMovimiento.VENTA
-                       or mov.tipo = com.globaltechnology.backend.domain.TipoMovimiento.SALIDA
-                       then -mov.cantidad
-                     else 0
-                   end
-                 ), 0
-               ) as stock
-        from Modelo mo
-          left join Variante v
-            on v.modelo = mo
-          left join MovimientoInventario mov
-            on mov.variante = v
-        where mo.trackeaUnidad = false
-        group by mo.id, mo.nombre
-      """)
-  List<StockMovModeloProjection> findStockActualPorModeloNoTrackeado();
 }
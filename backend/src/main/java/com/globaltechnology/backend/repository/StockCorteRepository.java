@@ -0,0 +1,54 @@
+package com.globaltechnology.backend.repository;
+
+import com.globaltechnology.backend.domain.StockCorte;
+import com.globaltechnology.backend.repository.MovimientoInventarioRepository.VarianteCantidadRow;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface StockCorteRepository extends JpaRepository<StockCorte, Long> {
+
+  @Query("select max(c.fecha) from StockCorte c")
+  Instant ultimoCorte();
+
+  @Query("select max(c.fecha) from StockCorte c where c.fecha <= :fecha")
+  Instant ultimoCorteHasta(Instant fecha);
+
+  // Saldo de cada variante con movimientos hasta el corte: su última fila
+  // que no sea posterior.
+  @Query("""
+        select c.varianteId as varianteId,
+               c.saldo as cantidad
+        from StockCorte c
+        where c.fecha = (select max(c2.fecha) from StockCorte c2
+                          where c2.varianteId = c.varianteId and c2.fecha <= :corte)
+      """)
+  List<VarianteCantidadRow> saldosAl(Instant corte);
+
+  // Saca de cada corte dos veces las ventas positivas anteriores a él: las
+  // que sumó y las que tendría que haber restado.
+  @Modifying
+  @Query("""
+        update StockCorte c
+        set c.saldo = c.saldo - 2 * (select coalesce(sum(m.cantidad), 0) from MovimientoInventario m
+                                      where m.variante.id = c.varianteId
+                                        and m.tipo = com.globaltechnology.backend.domain.TipoMovimiento.VENTA
+                                        and m.refTipo = 'venta'
+                                        and m.cantidad > 0
+                                        and m.fecha < c.fecha)
+        where exists (select 1 from MovimientoInventario m
+                       where m.variante.id = c.varianteId
+                         and m.tipo = com.globaltechnology.backend.domain.TipoMovimiento.VENTA
+                         and m.refTipo = 'venta'
+                         and m.cantidad > 0
+                         and m.fecha < c.fecha)
+      """)
+  int descontarVentasPositivas();
+
+  @Modifying
+  @Query("delete from StockCorte c where c.varianteId = :varianteId")
+  void deleteByVarianteId(Long varianteId);
+}
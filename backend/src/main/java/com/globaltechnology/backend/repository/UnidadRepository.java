@@ -1,23 +1,105 @@
 package com.globaltechnology.backend.repository;
 
 import com.globaltechnology.backend.domain.*;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+
+import java.math.BigDecimal;
+import java.time.Instant;
 import java.util.*;
+import java.util.stream.Stream;
 
 public interface UnidadRepository extends JpaRepository<Unidad, Long> {
 
-  long countByVariante_IdAndEstadoStockIn(Long varianteId, Collection<EstadoStock> estados);
+  Optional<Unidad> findByImei(String imei);
+
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  @Query("select u from Unidad u where u.id = :id")
+  Optional<Unidad> findParaVentaById(Long id);
 
   @Query("""
-        select u.variante.id as varianteId, count(u) as stock
+        select u
         from Unidad u
-        where u.variante.id in :varianteIds and u.estadoStock in :estados
+        join fetch u.variante v
+        join fetch v.modelo m
+        left join fetch v.color
+        left join fetch v.capacidad
+        where u.imei = :imei
+      """)
+  Optional<Unidad> findDetalleByImei(String imei);
+
+  @Query("""
+        select u.id as unidadId,
+               u.imei as imei,
+               m.nombre as modeloNombre,
+               c.nombre as colorNombre,
+               cap.etiqueta as capacidadEtiqueta,
+               u.estadoStock as estadoStock,
+               u.estadoProducto as estadoProducto
+        from Unidad u
+        join u.variante v
+        join v.modelo m
+        left join v.color c
+        left join v.capacidad cap
+        where u.id in :ids
+      """)
+  List<ImeiCoincidenciaRow> findCoincidenciasImei(Collection<Long> ids);
+
+  @Query("""
+        select cat.id as categoriaId,
+               cat.nombre as categoriaNombre,
+               mar.id as marcaId,
+               mar.nombre as marcaNombre,
+               u.estadoProducto as estadoProducto,
+               count(u) as unidades,
+               coalesce(sum(v.precioBase), 0) as valorBase,
+               coalesce(sum(coalesce(u.precioOverride, v.precioBase)), 0) as valorEfectivo
+        from Unidad u
+        join u.variante v
+        join v.modelo m
+        join m.categoria cat
+        join m.marca mar
+        where u.estadoStock = :estado
+        group by cat.id, cat.nombre, mar.id, mar.nombre, u.estadoProducto
+      """)
+  List<ValuacionUnidadesRow> valuacionPorGrupo(EstadoStock estado);
+
+  // Unidades que estaban en stock en la fecha: ya ingresadas y sin venta
+  // anterior. Una vendida sin movimiento de venta (marcada a mano) se toma
+  // como vendida desde su última modificación.
+  @Query("""
+        select u.variante.id as varianteId,
+               count(u) as cantidad
+        from Unidad u
+        where u.createdAt < :fecha
+          and not exists (select 1 from MovimientoInventario m
+                           where m.unidad = u
+                             and m.tipo = com.globaltechnology.backend.domain.TipoMovimiento.VENTA
+                             and m.fecha < :fecha)
+          and (u.estadoStock = com.globaltechnology.backend.domain.EstadoStock.EN_STOCK
+               or u.updatedAt >= :fecha
+               or exists (select 1 from MovimientoInventario m2
+                           where m2.unidad = u
+                             and m2.tipo = com.globaltechnology.backend.domain.TipoMovimiento.VENTA))
         group by u.variante.id
       """)
-  List<VarianteStockRow> stockPorVariante(Collection<Long> varianteIds, Collection<EstadoStock> estados);
+  List<MovimientoInventarioRepository.VarianteCantidadRow> enStockPorVarianteAl(Instant fecha);
 
-  Optional<Unidad> findByImei(String imei);
+  @Query("""
+        select u.id as id, u.imei as imei
+        from Unidad u
+        where u.imei is not null
+      """)
+  @QueryHints({
+      @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+      @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500") })
+  Stream<ImeiRow> streamImeis();
 
   boolean existsByImei(String imei);
 
@@ -29,26 +111,166 @@ public interface UnidadRepository extends JpaRepository<Unidad, Long> {
 
   List<Unidad> findAllByVariante_Id(Long varianteId);
 
+  List<Unidad> findAllByVariante_IdIn(Collection<Long> varianteIds);
+
   @Query("""
-        select u.variante.id as varianteId,
+        select v.id as varianteId,
                u.estadoProducto as estadoProducto,
-               count(u) as stock
+               count(u) as stock,
+               min(coalesce(u.precioOverride, v.precioBase)) as precioMin,
+               max(u.createdAt) as ultimoIngreso
         from Unidad u
-        where u.variante.id in :varianteIds
-          and u.estadoStock in :estados
-        group by u.variante.id, u.estadoProducto
+        join u.variante v
+        where v.id in :varianteIds
+          and u.estadoStock = :estado
+        group by v.id, u.estadoProducto
       """)
-  List<VarianteStockPorEstadoRow> stockPorVarianteYEstado(Collection<Long> varianteIds,
-      Collection<EstadoStock> estados);
+  List<VarianteCatalogoAggRow> agregadoCatalogoPorVariante(Collection<Long> varianteIds, EstadoStock estado);
 
-  List<Unidad> findAllByVariante_IdIn(Collection<Long> varianteIds);
+  List<Unidad> findAllByVariante_IdInAndEstadoStockAndEstadoProducto(Collection<Long> varianteIds,
+      EstadoStock estadoStock, EstadoComercial estadoProducto);
+
+  // Unidades en stock y, si se piden, una fila por variante no trackeada
+  // (sin unidad), todas en un único orden armado por la base: así el
+  // intercalado respeta la collation también con acentos.
+  @Query("""
+        select m.id as modeloId,
+               m.nombre as modeloNombre,
+               v.id as varianteId,
+               c.nombre as colorNombre,
+               cap.etiqueta as capacidadEtiqueta,
+               u.id as unidadId,
+               u.imei as imei,
+               u.bateriaCondicionPct as bateriaCondicionPct,
+               u.estadoProducto as estadoProducto,
+               u.estadoStock as estadoStock,
+               v.precioBase as precioBase,
+               u.precioOverride as precioOverride,
+               coalesce(u.createdAt, v.createdAt) as createdAt,
+               coalesce(u.updatedAt, v.updatedAt) as updatedAt
+        from Variante v
+        join v.modelo m
+        left join v.color c
+        left join v.capacidad cap
+        left join Unidad u on u.variante = v
+          and m.trackeaUnidad = true
+          and u.estadoStock = :estado
+          and (:desde is null or u.createdAt >= :desde)
+          and (:hasta is null or u.createdAt < :hasta)
+        where (:categoriaId is null or m.categoria.id = :categoriaId)
+          and (:marcaId is null or m.marca.id = :marcaId)
+          and ((m.trackeaUnidad = true and u.id is not null)
+            or (m.trackeaUnidad = false and :conNoTrackeados = true))
+        order by lower(m.nombre), lower(coalesce(c.nombre, '')), lower(coalesce(cap.etiqueta, '')), coalesce(u.id, 0)
+      """)
+  @QueryHints({
+      @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+      @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500") })
+  Stream<InventarioUnidadRow> streamInventario(EstadoStock estado, Long categoriaId, Long marcaId,
+      Instant desde, Instant hasta, boolean conNoTrackeados);
+
+  // Paginación por clave sobre el mismo orden que streamInventario: la página
+  // siguiente arranca después de (modelo, color, capacidad, unidad) del cursor.
+  @Query("""
+        select m.id as modeloId,
+               m.nombre as modeloNombre,
+               v.id as varianteId,
+               c.nombre as colorNombre,
+               cap.etiqueta as capacidadEtiqueta,
+               u.id as unidadId,
+               u.imei as imei,
+               u.bateriaCondicionPct as bateriaCondicionPct,
+               u.estadoProducto as estadoProducto,
+               u.estadoStock as estadoStock,
+               v.precioBase as precioBase,
+               u.precioOverride as precioOverride,
+               u.createdAt as createdAt,
+               u.updatedAt as updatedAt,
+               lower(m.nombre) as claveModelo,
+               lower(coalesce(c.nombre, '')) as claveColor,
+               lower(coalesce(cap.etiqueta, '')) as claveCapacidad
+        from Unidad u
+        join u.variante v
+        join v.modelo m
+        left join v.color c
+        left join v.capacidad cap
+        where m.trackeaUnidad = true
+          and u.estadoStock = :estadoStock
+          and (:estadoProducto is null or u.estadoProducto = :estadoProducto)
+          and (:modeloId is null or m.id = :modeloId)
+          and (:colorId is null or c.id = :colorId)
+          and (:capacidadId is null or cap.id = :capacidadId)
+          and (:imeiPrefijo is null or u.imei like :imeiPrefijo)
+          and u.id not in :excluidas
+          and (:claveModelo is null
+            or lower(m.nombre) > :claveModelo
+            or (lower(m.nombre) = :claveModelo
+              and (lower(coalesce(c.nombre, '')) > :claveColor
+                or (lower(coalesce(c.nombre, '')) = :claveColor
+                  and (lower(coalesce(cap.etiqueta, '')) > :claveCapacidad
+                    or (lower(coalesce(cap.etiqueta, '')) = :claveCapacidad and u.id > :unidadId))))))
+        order by lower(m.nombre), lower(coalesce(c.nombre, '')), lower(coalesce(cap.etiqueta, '')), u.id
+      """)
+  @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+  List<InventarioPaginaRow> paginaInventario(EstadoStock estadoStock, EstadoComercial estadoProducto,
+      Long modeloId, Long colorId, Long capacidadId, String imeiPrefijo, Collection<Long> excluidas,
+      String claveModelo, String claveColor, String claveCapacidad, Long unidadId, Limit limite);
+
+  @Query("""
+        select distinct u.variante.modelo.id
+        from Unidad u
+        where u.id in :unidadIds
+      """)
+  List<Long> findModeloIdsByUnidadIdIn(Collection<Long> unidadIds);
 
-  public interface VarianteStockPorEstadoRow {
+  interface VarianteCatalogoAggRow {
     Long getVarianteId();
 
     EstadoComercial getEstadoProducto();
 
     long getStock();
+
+    BigDecimal getPrecioMin();
+
+    Instant getUltimoIngreso();
+  }
+
+  interface InventarioUnidadRow {
+    Long getModeloId();
+
+    String getModeloNombre();
+
+    Long getVarianteId();
+
+    String getColorNombre();
+
+    String getCapacidadEtiqueta();
+
+    Long getUnidadId();
+
+    String getImei();
+
+    Integer getBateriaCondicionPct();
+
+    EstadoComercial getEstadoProducto();
+
+    EstadoStock getEstadoStock();
+
+    BigDecimal getPrecioBase();
+
+    BigDecimal getPrecioOverride();
+
+    Instant getCreatedAt();
+
+    Instant getUpdatedAt();
+  }
+
+  interface InventarioPaginaRow extends InventarioUnidadRow {
+    String getClaveModelo();
+
+    String getClaveColor();
+
+    String getClaveCapacidad();
   }
 
   interface ModeloStockRow {
@@ -57,10 +279,43 @@ public interface UnidadRepository extends JpaRepository<Unidad, Long> {
     long getStock();
   }
 
-  interface VarianteStockRow {
-    Long getVarianteId();
+  interface ValuacionUnidadesRow {
+    Long getCategoriaId();
+
+    String getCategoriaNombre();
+
+    Long getMarcaId();
+
+    String getMarcaNombre();
+
+    EstadoComercial getEstadoProducto();
+
+    Long getUnidades();
+
+    BigDecimal getValorBase();
+
+    BigDecimal getValorEfectivo();
+  }
+
+  interface ImeiRow {
+    Long getId();
 
-    Long getStock();
+    String getImei();
   }
 
+  interface ImeiCoincidenciaRow {
+    Long getUnidadId();
+
+    String getImei();
+
+    String getModeloNombre();
+
+    String getColorNombre();
+
+    String getCapacidadEtiqueta();
+
+    EstadoStock getEstadoStock();
+
+    EstadoComercial getEstadoProducto();
+  }
 }
@@ -1,10 +1,14 @@
 package com.globaltechnology.backend.repository;
 
 import com.globaltechnology.backend.domain.*;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface VarianteImagenRepository extends JpaRepository<VarianteImagen, Long> {
@@ -19,6 +23,21 @@ public interface VarianteImagenRepository extends JpaRepository<VarianteImagen,
 
   List<VarianteImagen> findAllByVariante_IdIn(List<Long> varianteIds);
 
+  @Query("""
+        select vi.variante.id as varianteId,
+               vi.id as id,
+               vi.setTipo as setTipo,
+               vi.url as url,
+               vi.altText as altText,
+               vi.orden as orden,
+               vi.principal as principal
+        from VarianteImagen vi
+        where vi.variante.id in :varianteIds
+        order by vi.variante.id, vi.setTipo, vi.orden
+      """)
+  @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+  List<ImagenRow> findRowsByVarianteIdIn(@Param("varianteIds") Collection<Long> varianteIds);
+
   @Query("""
         select coalesce(max(vi.orden), -1)
         from VarianteImagen vi
@@ -28,4 +47,20 @@ public interface VarianteImagenRepository extends JpaRepository<VarianteImagen,
       @Param("set") ImagenSet set);
 
   void deleteByVariante_Id(Long varianteId);
+
+  interface ImagenRow {
+    Long getVarianteId();
+
+    Long getId();
+
+    ImagenSet getSetTipo();
+
+    String getUrl();
+
+    String getAltText();
+
+    int getOrden();
+
+    boolean isPrincipal();
+  }
 }
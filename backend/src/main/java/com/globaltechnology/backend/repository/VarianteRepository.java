@@ -1,11 +1,17 @@
 package com.globaltechnology.backend.repository;
 
 import com.globaltechnology.backend.domain.*;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 
+import java.math.BigDecimal;
+import java.time.Instant;
 import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface VarianteRepository extends JpaRepository<Variante, Long> {
   boolean existsByModelo_Id(Long modeloId);
@@ -16,6 +22,72 @@ public interface VarianteRepository extends JpaRepository<Variante, Long> {
 
   List<Variante> findAllByModelo_IdIn(List<Long> modeloIds);
 
+  @Query("""
+        select v.id as id,
+               m.id as modeloId,
+               m.nombre as modeloNombre,
+               m.trackeaUnidad as trackeaUnidad,
+               c.id as colorId,
+               c.nombre as colorNombre,
+               cap.id as capacidadId,
+               cap.etiqueta as capacidadEtiqueta,
+               v.precioBase as precioBase,
+               v.createdAt as createdAt,
+               v.updatedAt as updatedAt
+        from Variante v
+        join v.modelo m
+        left join v.color c
+        left join v.capacidad cap
+        order by v.id
+      """)
+  @QueryHints({
+      @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+      @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500") })
+  Stream<VarianteListadoRow> streamListado();
+
+  @Query("""
+        select v.id as id,
+               m.id as modeloId,
+               m.nombre as modeloNombre,
+               m.trackeaUnidad as trackeaUnidad,
+               c.id as colorId,
+               c.nombre as colorNombre,
+               cap.id as capacidadId,
+               cap.etiqueta as capacidadEtiqueta,
+               v.precioBase as precioBase,
+               v.createdAt as createdAt,
+               v.updatedAt as updatedAt
+        from Variante v
+        join v.modelo m
+        left join v.color c
+        left join v.capacidad cap
+        where (:categoriaId is null or m.categoria.id = :categoriaId)
+          and (:marcaId is null or m.marca.id = :marcaId)
+      """)
+  @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+  List<VarianteListadoRow> findListado(Long categoriaId, Long marcaId);
+
+  @Query("""
+        select v.id as id,
+               m.id as modeloId,
+               m.nombre as modeloNombre,
+               m.trackeaUnidad as trackeaUnidad,
+               c.id as colorId,
+               c.nombre as colorNombre,
+               cap.id as capacidadId,
+               cap.etiqueta as capacidadEtiqueta,
+               v.precioBase as precioBase,
+               v.createdAt as createdAt,
+               v.updatedAt as updatedAt
+        from Variante v
+        join v.modelo m
+        left join v.color c
+        left join v.capacidad cap
+        where m.id in :modeloIds
+      """)
+  @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+  List<VarianteListadoRow> findListadoByModeloIdIn(Collection<Long> modeloIds);
+
   @Query("""
         select v.modelo.id as modeloId, count(v) as variantes
         from Variante v
@@ -32,6 +104,30 @@ public interface VarianteRepository extends JpaRepository<Variante, Long> {
       """)
   boolean existsByModeloAndAtributos(Long modeloId, Long colorId, Long capacidadId);
 
+  interface VarianteListadoRow {
+    Long getId();
+
+    Long getModeloId();
+
+    String getModeloNombre();
+
+    boolean isTrackeaUnidad();
+
+    Long getColorId();
+
+    String getColorNombre();
+
+    Long getCapacidadId();
+
+    String getCapacidadEtiqueta();
+
+    BigDecimal getPrecioBase();
+
+    Instant getCreatedAt();
+
+    Instant getUpdatedAt();
+  }
+
   interface ModeloVarianteCountRow {
     Long getModeloId();
 
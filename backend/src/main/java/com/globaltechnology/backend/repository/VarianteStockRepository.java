@@ -0,0 +1,154 @@
+package com.globaltechnology.backend.repository;
+
+import com.globaltechnology.backend.domain.VarianteStock;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface VarianteStockRepository extends JpaRepository<VarianteStock, Long> {
+
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  @Query("select s from VarianteStock s where s.varianteId = :varianteId")
+  Optional<VarianteStock> findBloqueadaById(Long varianteId);
+
+  @Modifying
+  @Query("""
+        update VarianteStock s
+        set s.nuevos = s.nuevos + :nuevos,
+            s.usados = s.usados + :usados,
+            s.cantidad = s.cantidad + :cantidad
+        where s.varianteId = :varianteId
+      """)
+  int sumar(Long varianteId, long nuevos, long usados, long cantidad);
+
+  @Modifying
+  @Query("""
+        update VarianteStock s
+        set s.cantidad = s.cantidad - :cantidad
+        where s.varianteId = :varianteId
+          and s.cantidad >= :minimo
+      """)
+  int descontar(Long varianteId, long cantidad, long minimo);
+
+  // Igual que StockCorteRepository.descontarVentasPositivas, sobre el stock actual.
+  @Modifying
+  @Query("""
+        update VarianteStock s
+        set s.cantidad = s.cantidad - 2 * (select coalesce(sum(m.cantidad), 0) from MovimientoInventario m
+                                            where m.variante.id = s.varianteId
+                                              and m.tipo = com.globaltechnology.backend.domain.TipoMovimiento.VENTA
+                                              and m.refTipo = 'venta'
+                                              and m.cantidad > 0)
+        where exists (select 1 from MovimientoInventario m
+                       where m.variante.id = s.varianteId
+                         and m.tipo = com.globaltechnology.backend.domain.TipoMovimiento.VENTA
+                         and m.refTipo = 'venta'
+                         and m.cantidad > 0)
+      """)
+  int descontarVentasPositivas();
+
+  // Cuenta desde las tablas de origen las variantes que todavía no tienen
+  // fila (o solo la pedida, si varianteId no es nulo). El libro se suma desde
+  // el último corte de la variante.
+  @Modifying
+  @Query("""
+        insert into VarianteStock (varianteId, nuevos, usados, cantidad)
+        select v.id,
+               (select count(u) from Unidad u
+                 where u.variante = v
+                   and u.estadoStock = com.globaltechnology.backend.domain.EstadoStock.EN_STOCK
+                   and u.estadoProducto = com.globaltechnology.backend.domain.EstadoComercial.NUEVO),
+               (select count(u) from Unidad u
+                 where u.variante = v
+                   and u.estadoStock = com.globaltechnology.backend.domain.EstadoStock.EN_STOCK
+                   and u.estadoProducto = com.globaltechnology.backend.domain.EstadoComercial.USADO),
+               coalesce((select c.saldo from StockCorte c
+                          where c.varianteId = v.id
+                            and c.fecha = (select max(c2.fecha) from StockCorte c2 where c2.varianteId = v.id)), 0)
+               + coalesce((select sum(m.cantidad) from MovimientoInventario m
+                            where m.variante = v
+                              and m.fecha >= coalesce((select max(c3.fecha) from StockCorte c3
+                                                        where c3.varianteId = v.id), m.fecha)), 0)
+        from Variante v
+        where (:varianteId is null or v.id = :varianteId)
+          and not exists (select 1 from VarianteStock s where s.varianteId = v.id)
+      """)
+  int insertarFaltantes(Long varianteId);
+
+  @Query("""
+        select cat.id as categoriaId,
+               cat.nombre as categoriaNombre,
+               mar.id as marcaId,
+               mar.nombre as marcaNombre,
+               coalesce(sum(s.cantidad), 0) as unidades,
+               coalesce(sum(s.cantidad * v.precioBase), 0) as valor
+        from VarianteStock s
+        join Variante v on v.id = s.varianteId
+        join v.modelo m
+        join m.categoria cat
+        join m.marca mar
+        where m.trackeaUnidad = false
+        group by cat.id, cat.nombre, mar.id, mar.nombre
+      """)
+  List<ValuacionNoTrackeadoRow> valuacionNoTrackeadoPorGrupo();
+
+  @Query("""
+        select mo.id as modeloId,
+               mo.nombre as nombre,
+               mo.trackeaUnidad as trackeaUnidad,
+               mo.stockMinimo as stockMinimo,
+               coalesce(sum(case when mo.trackeaUnidad = true then s.nuevos + s.usados else s.cantidad end), 0) as stock
+        from Modelo mo
+          left join Variante v on v.modelo = mo
+          left join VarianteStock s on s.varianteId = v.id
+        group by mo.id, mo.nombre, mo.trackeaUnidad, mo.stockMinimo
+      """)
+  List<ModeloStockRow> stockPorModelo();
+
+  @Query("""
+        select mo.id as modeloId,
+               mo.nombre as nombre,
+               mo.trackeaUnidad as trackeaUnidad,
+               mo.stockMinimo as stockMinimo,
+               coalesce(sum(case when mo.trackeaUnidad = true then s.nuevos + s.usados else s.cantidad end), 0) as stock
+        from Modelo mo
+          left join Variante v on v.modelo = mo
+          left join VarianteStock s on s.varianteId = v.id
+        where mo.id in :modeloIds
+        group by mo.id, mo.nombre, mo.trackeaUnidad, mo.stockMinimo
+      """)
+  List<ModeloStockRow> stockDeModelos(Collection<Long> modeloIds);
+
+  interface ModeloStockRow {
+    Long getModeloId();
+
+    String getNombre();
+
+    boolean isTrackeaUnidad();
+
+    Integer getStockMinimo();
+
+    Long getStock();
+  }
+
+  interface ValuacionNoTrackeadoRow {
+    Long getCategoriaId();
+
+    String getCategoriaNombre();
+
+    Long getMarcaId();
+
+    String getMarcaNombre();
+
+    Long getUnidades();
+
+    BigDecimal getValor();
+  }
+}
@@ -5,6 +5,7 @@ import org.springframework.data.jpa.repository.*;
 import org.springframework.data.repository.query.Param;
 
 import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 
 public interface VentaItemRepository extends JpaRepository<VentaItem, Long> {
@@ -20,6 +21,27 @@ public interface VentaItemRepository extends JpaRepository<VentaItem, Long> {
       """)
   List<VentaItem> findByVentaId(@Param("ventaId") Long ventaId);
 
+  @Query("""
+        SELECT i
+        FROM VentaItem i
+        JOIN FETCH i.variante v
+        JOIN FETCH v.modelo m
+        LEFT JOIN FETCH i.unidad u
+        WHERE i.venta.id IN :ventaIds
+        ORDER BY i.id
+      """)
+  List<VentaItem> findByVentaIdIn(@Param("ventaIds") Collection<Long> ventaIds);
+
+  @Query("""
+        SELECT i
+        FROM VentaItem i
+        JOIN FETCH i.venta ven
+        LEFT JOIN FETCH ven.cliente
+        WHERE i.unidad.imei = :imei
+        ORDER BY ven.fecha DESC, i.id DESC
+      """)
+  List<VentaItem> findByUnidadImei(@Param("imei") String imei);
+
   @Query("""
         SELECT i
         FROM VentaItem i
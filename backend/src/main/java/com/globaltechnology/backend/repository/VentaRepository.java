@@ -1,7 +1,25 @@
 package com.globaltechnology.backend.repository;
 
 import com.globaltechnology.backend.domain.Venta;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+
+import java.time.Instant;
+import java.util.stream.Stream;
 
 public interface VentaRepository extends JpaRepository<Venta, Long> {
+
+  @Query("""
+        select v
+        from Venta v
+        left join fetch v.cliente
+        where (:desde is null or v.fecha >= :desde)
+          and (:hasta is null or v.fecha < :hasta)
+        order by v.fecha desc, v.id desc
+      """)
+  @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+  Stream<Venta> streamOrdenadasPorFechaDesc(Instant desde, Instant hasta);
 }
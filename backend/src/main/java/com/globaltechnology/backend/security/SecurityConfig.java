@@ -1,5 +1,6 @@
 package com.globaltechnology.backend.security;
 
+import jakarta.servlet.DispatcherType;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
@@ -10,6 +11,9 @@ import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.crypto.bcrypt.*;
 import org.springframework.security.web.*;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import org.springframework.security.web.servlet.util.matcher.PathPatternRequestMatcher;
+import org.springframework.security.web.util.matcher.AndRequestMatcher;
+import org.springframework.security.web.util.matcher.DispatcherTypeRequestMatcher;
 import org.springframework.web.cors.*;
 
 import java.util.List;
@@ -31,8 +35,15 @@ public class SecurityConfig {
         .sessionManagement(sm -> sm.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
         .authorizeHttpRequests(auth -> auth
             .requestMatchers("/actuator/**", "/auth/login", "/error").permitAll()
+            // El despacho asíncrono del stream de alertas continúa una petición
+            // ya autorizada; el JWT no se vuelve a leer en ese despacho.
+            .requestMatchers(new AndRequestMatcher(
+                new DispatcherTypeRequestMatcher(DispatcherType.ASYNC),
+                PathPatternRequestMatcher.withDefaults().matcher(HttpMethod.GET, "/api/productos/alertas/stream")))
+            .permitAll()
             .requestMatchers(HttpMethod.OPTIONS, "/**").permitAll()
             .requestMatchers(HttpMethod.GET, "/api/catalogo/**").permitAll()
+            .requestMatchers(HttpMethod.POST, "/api/catalogo/detalle/lote").permitAll()
 
             .requestMatchers(HttpMethod.GET, "/api/productos/**").hasAnyRole("ADMIN", "OPERADOR")
             // NOTAS
@@ -98,6 +109,9 @@ public class SecurityConfig {
             .requestMatchers(HttpMethod.GET, "/api/ventas/**").hasAnyRole("ADMIN", "OPERADOR")
             .requestMatchers(HttpMethod.POST, "/api/ventas/**").hasAnyRole("ADMIN", "OPERADOR")
 
+            // RESERVAS
+            .requestMatchers("/api/reservas/**").hasAnyRole("ADMIN", "OPERADOR")
+
             .requestMatchers(HttpMethod.GET, "/api/catalogo/destacados").permitAll()
 
             .requestMatchers(HttpMethod.POST, "/api/catalogo/destacados/**").hasRole("ADMIN")
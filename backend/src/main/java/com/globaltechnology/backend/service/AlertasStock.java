@@ -0,0 +1,238 @@
+package com.globaltechnology.backend.service;
+
+import com.globaltechnology.backend.repository.VarianteStockRepository.ModeloStockRow;
+import com.globaltechnology.backend.web.dto.AlertaStockDTO;
+import com.globaltechnology.backend.web.dto.ModeloStockDTO;
+import com.globaltechnology.backend.web.dto.NivelStock;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Nivel de stock de cada modelo (normal, bajo o sin stock) y los clientes
+ * suscriptos por SSE a sus cambios.
+ *
+ * <p>
+ * El estado se arma al arrancar. Después, con cada
+ * {@link CatalogoModificadoEvent} se vuelve a consultar solo el stock de los
+ * modelos afectados y se avisa a los suscriptos cuando alguno cambia de nivel.
+ * Ese trabajo y los envíos corren en un único hilo propio, así quien confirmó
+ * la venta no espera a los clientes y cada suscripto recibe los cambios en
+ * orden, después del estado inicial.
+ *
+ * <p>
+ * Los modelos sin stock y con stock bajo se mantienen además ordenados por
+ * nivel, y las listas para las estadísticas se vuelven a armar solo cuando
+ * alguno de ellos cambia: leerlas no recorre el catálogo.
+ */
+@Slf4j
+@Component
+public class AlertasStock {
+  private static final long TIMEOUT_MILLIS = Duration.ofMinutes(30).toMillis();
+
+  private record Estado(long modeloId, String nombre, boolean trackeaUnidad, long stock, long umbral,
+      NivelStock nivel) {
+
+    AlertaStockDTO toDTO(NivelStock anterior) {
+      return new AlertaStockDTO(modeloId, nombre, stock, umbral, nivel, anterior);
+    }
+  }
+
+  private static final Comparator<Estado> ORDEN = Comparator
+      .comparing((Estado e) -> !e.trackeaUnidad())
+      .thenComparingLong(Estado::modeloId);
+
+  /** Modelos sin stock y con stock bajo, los que trackean unidad primero. */
+  public record Listas(List<ModeloStockDTO> sinStock, List<ModeloStockDTO> stockBajo) {
+  }
+
+  private final StockService stock;
+  private final long umbralPorDefecto;
+
+  private final ExecutorService envios = Executors.newSingleThreadExecutor(r -> {
+    var t = new Thread(r, "alertas-stock");
+    t.setDaemon(true);
+    return t;
+  });
+  private final List<SseEmitter> suscriptos = new CopyOnWriteArrayList<>();
+  private final Object lock = new Object();
+  private Map<Long, Estado> estados;
+  private final Map<NivelStock, TreeSet<Estado>> enAlerta = Map.of(
+      NivelStock.SIN_STOCK, new TreeSet<>(ORDEN),
+      NivelStock.BAJO, new TreeSet<>(ORDEN));
+  private volatile Listas listas;
+
+  public AlertasStock(StockService stock, @Value("${app.stock.bajo-umbral:2}") long umbralPorDefecto) {
+    this.stock = stock;
+    this.umbralPorDefecto = umbralPorDefecto;
+  }
+
+  public Listas listas() {
+    var l = listas;
+    if (l != null)
+      return l;
+    synchronized (lock) {
+      estados();
+      return listas;
+    }
+  }
+
+  /** Primero manda un evento {@code estado} con los modelos en alerta y después un {@code alerta} por cambio. */
+  public SseEmitter suscribir() {
+    var emitter = new SseEmitter(TIMEOUT_MILLIS);
+    emitter.onCompletion(() -> suscriptos.remove(emitter));
+    emitter.onTimeout(emitter::complete);
+    emitter.onError(e -> suscriptos.remove(emitter));
+    envios.execute(() -> {
+      List<AlertaStockDTO> actuales;
+      synchronized (lock) {
+        estados();
+        var todos = new TreeSet<>(ORDEN);
+        enAlerta.values().forEach(todos::addAll);
+        actuales = todos.stream().map(e -> e.toDTO(null)).toList();
+      }
+      if (enviar(emitter, SseEmitter.event().name("estado").data(actuales)))
+        suscriptos.add(emitter);
+    });
+    return emitter;
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void alArrancar() {
+    synchronized (lock) {
+      estados();
+    }
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onCatalogoModificado(CatalogoModificadoEvent event) {
+    envios.execute(() -> {
+      try {
+        actualizar(event);
+      } catch (RuntimeException e) {
+        log.error("No se pudieron actualizar las alertas de stock", e);
+      }
+    });
+  }
+
+  // Mantiene abiertas las conexiones detrás de proxies y descarta las cortadas.
+  @Scheduled(fixedDelay = 25_000)
+  public void latido() {
+    if (suscriptos.isEmpty())
+      return;
+    envios.execute(() -> {
+      for (var s : suscriptos) {
+        enviar(s, SseEmitter.event().comment(""));
+      }
+    });
+  }
+
+  @PreDestroy
+  void cerrar() {
+    envios.shutdownNow();
+    suscriptos.forEach(SseEmitter::complete);
+  }
+
+  private void actualizar(CatalogoModificadoEvent event) {
+    var cambios = new ArrayList<AlertaStockDTO>();
+    synchronized (lock) {
+      // Si todavía no se armó, lo va a leer de la base.
+      if (estados == null)
+        return;
+      var filas = event.esCompleto() ? stock.porModelo() : stock.porModelo(event.modeloIds());
+      var vistos = new HashSet<Long>();
+      boolean listasCambiaron = false;
+      for (var f : filas) {
+        var e = estado(f);
+        vistos.add(e.modeloId());
+        var anterior = estados.put(e.modeloId(), e);
+        listasCambiaron |= reubicar(anterior, e);
+        var nivelAnterior = anterior == null ? NivelStock.NORMAL : anterior.nivel();
+        if (e.nivel() != nivelAnterior)
+          cambios.add(e.toDTO(nivelAnterior));
+      }
+      // Los que no volvieron en la consulta se eliminaron.
+      var consultados = event.esCompleto() ? Set.copyOf(estados.keySet()) : event.modeloIds();
+      for (var id : consultados) {
+        if (!vistos.contains(id))
+          listasCambiaron |= reubicar(estados.remove(id), null);
+      }
+      if (listasCambiaron)
+        publicarListas();
+    }
+    for (var c : cambios) {
+      for (var s : suscriptos) {
+        enviar(s, SseEmitter.event().name("alerta").data(c));
+      }
+    }
+  }
+
+  private Map<Long, Estado> estados() {
+    if (estados == null) {
+      var out = new HashMap<Long, Estado>();
+      for (var f : stock.porModelo()) {
+        var e = estado(f);
+        out.put(e.modeloId(), e);
+        reubicar(null, e);
+      }
+      estados = out;
+      publicarListas();
+    }
+    return estados;
+  }
+
+  /** Mueve el modelo entre las listas por nivel; devuelve si alguna cambió. */
+  private boolean reubicar(Estado anterior, Estado actual) {
+    if (Objects.equals(anterior, actual))
+      return false;
+    boolean cambio = false;
+    if (anterior != null && anterior.nivel() != NivelStock.NORMAL)
+      cambio = enAlerta.get(anterior.nivel()).remove(anterior);
+    if (actual != null && actual.nivel() != NivelStock.NORMAL)
+      cambio |= enAlerta.get(actual.nivel()).add(actual);
+    return cambio;
+  }
+
+  private void publicarListas() {
+    listas = new Listas(aDTO(enAlerta.get(NivelStock.SIN_STOCK)), aDTO(enAlerta.get(NivelStock.BAJO)));
+  }
+
+  private static List<ModeloStockDTO> aDTO(Collection<Estado> estados) {
+    return estados.stream()
+        .map(e -> new ModeloStockDTO(e.modeloId(), e.nombre(), e.stock()))
+        .toList();
+  }
+
+  private Estado estado(ModeloStockRow f) {
+    long cantidad = f.getStock() != null ? f.getStock() : 0L;
+    long umbral = f.getStockMinimo() != null ? f.getStockMinimo() : umbralPorDefecto;
+    var nivel = cantidad <= 0 ? NivelStock.SIN_STOCK
+        : cantidad <= umbral ? NivelStock.BAJO
+        : NivelStock.NORMAL;
+    return new Estado(f.getModeloId(), f.getNombre(), f.isTrackeaUnidad(), cantidad, umbral, nivel);
+  }
+
+  private boolean enviar(SseEmitter emitter, SseEmitter.SseEventBuilder evento) {
+    try {
+      emitter.send(evento);
+      return true;
+    } catch (IOException | IllegalStateException e) {
+      suscriptos.remove(emitter);
+      emitter.completeWithError(e);
+      return false;
+    }
+  }
+}
@@ -0,0 +1,31 @@
+package com.globaltechnology.backend.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Recorre un {@link Stream} de repositorio de a bloques, para poder resolver
+ * datos relacionados con una sola consulta por bloque sin materializar todo.
+ */
+final class Bloques {
+  static final int TAMANIO = 500;
+
+  private Bloques() {
+  }
+
+  static <T> void recorrer(Stream<T> stream, Consumer<List<T>> accion) {
+    var bloque = new ArrayList<T>(TAMANIO);
+    var it = stream.iterator();
+    while (it.hasNext()) {
+      bloque.add(it.next());
+      if (bloque.size() == TAMANIO) {
+        accion.accept(bloque);
+        bloque = new ArrayList<>(TAMANIO);
+      }
+    }
+    if (!bloque.isEmpty())
+      accion.accept(bloque);
+  }
+}
@@ -4,6 +4,7 @@ import com.globaltechnology.backend.domain.Capacidad;
 import com.globaltechnology.backend.repository.CapacidadRepository;
 import com.globaltechnology.backend.web.dto.CapacidadCreateDTO;
 import com.globaltechnology.backend.web.dto.CapacidadDTO;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.web.server.ResponseStatusException;
@@ -13,9 +14,11 @@ import java.util.List;
 @Service
 public class CapacidadService {
   private final CapacidadRepository repo;
+  private final ApplicationEventPublisher events;
 
-  public CapacidadService(CapacidadRepository repo) {
+  public CapacidadService(CapacidadRepository repo, ApplicationEventPublisher events) {
     this.repo = repo;
+    this.events = events;
   }
 
   private static CapacidadDTO toDTO(Capacidad c) {
@@ -46,7 +49,9 @@ public class CapacidadService {
     var c = repo.findById(id)
         .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Capacidad no encontrada"));
     c.setEtiqueta(dto.etiqueta().trim());
-    return toDTO(repo.save(c));
+    c = repo.save(c);
+    events.publishEvent(CatalogoModificadoEvent.completo());
+    return toDTO(c);
   }
 
   public void delete(Long id) {
@@ -0,0 +1,299 @@
+package com.globaltechnology.backend.service;
+
+import com.globaltechnology.backend.domain.*;
+import com.globaltechnology.backend.repository.UnidadRepository.VarianteCatalogoAggRow;
+import com.globaltechnology.backend.web.dto.CatalogoItemDTO;
+import com.globaltechnology.backend.web.dto.TipoCatalogoItem;
+import com.globaltechnology.backend.web.dto.VarianteImagenDTO;
+import com.globaltechnology.backend.web.dto.VarianteOpcionCatalogoDTO;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.*;
+import java.util.stream.IntStream;
+
+/**
+ * Arma los items del catálogo a partir de las variantes y su stock ya
+ * consultados. Trackeados (sellado) y no trackeados comparten la misma
+ * agregación por modelo; las opciones se agrupan por id de color y capacidad.
+ *
+ * <p>
+ * Cada modelo se agrega por separado, así que con muchos modelos el trabajo
+ * se reparte en el pool fork-join común.
+ */
+final class CatalogoAgregador {
+  static final int UMBRAL_PARALELO = 512;
+
+  /** Orden de {@link TipoCatalogoItem} por nombre, que es como se ordena el catálogo. */
+  private static final int[] RANGO_TIPO = rangoTipo();
+
+  static final Comparator<CatalogoItemDTO> ORDEN = Comparator
+      .comparing((CatalogoItemDTO dto) -> minusculas(dto.modeloNombre()))
+      .thenComparingInt(dto -> RANGO_TIPO[dto.tipo().ordinal()])
+      .thenComparing(dto -> minusculas(dto.color()))
+      .thenComparingLong(dto -> dto.itemId() == null ? 0L : dto.itemId());
+
+  private final Map<Long, List<Variante>> variantesPorModelo;
+  private final Map<Long, List<Unidad>> usadosPorModelo;
+  private final Map<Long, VarianteCatalogoAggRow> selladoPorVariante;
+  private final Map<Long, Long> selladoReservado;
+  private final Map<Long, Long> stockNoTrackeado;
+  private final Map<Long, Map<ImagenSet, List<VarianteImagenDTO>>> imagenes;
+
+  CatalogoAgregador(List<Variante> variantes, List<Unidad> usados,
+      Map<Long, VarianteCatalogoAggRow> selladoPorVariante, Map<Long, Long> selladoReservado,
+      Map<Long, Long> stockNoTrackeado,
+      Map<Long, Map<ImagenSet, List<VarianteImagenDTO>>> imagenes) {
+    this.variantesPorModelo = new HashMap<>();
+    for (var v : variantes) {
+      variantesPorModelo.computeIfAbsent(v.getModelo().getId(), k -> new ArrayList<>()).add(v);
+    }
+    this.usadosPorModelo = new HashMap<>();
+    for (var u : usados) {
+      usadosPorModelo.computeIfAbsent(u.getVariante().getModelo().getId(), k -> new ArrayList<>()).add(u);
+    }
+    this.selladoPorVariante = selladoPorVariante;
+    this.selladoReservado = selladoReservado;
+    this.stockNoTrackeado = stockNoTrackeado;
+    this.imagenes = imagenes;
+  }
+
+  List<CatalogoItemDTO> armar(List<Modelo> modelos) {
+    var rango = IntStream.range(0, modelos.size());
+    if (modelos.size() >= UMBRAL_PARALELO)
+      rango = rango.parallel();
+    var items = rango
+        .mapToObj(i -> itemsDe(modelos.get(i)))
+        .flatMap(List::stream)
+        .toList();
+    return ordenar(items);
+  }
+
+  private List<CatalogoItemDTO> itemsDe(Modelo m) {
+    var out = new ArrayList<CatalogoItemDTO>(1);
+    for (var u : usadosPorModelo.getOrDefault(m.getId(), List.of())) {
+      out.add(itemUsado(m, u));
+    }
+
+    var agg = new Agregado();
+    boolean trackea = m.isTrackeaUnidad();
+    for (var v : variantesPorModelo.getOrDefault(m.getId(), List.of())) {
+      var porSet = imagenes.getOrDefault(v.getId(), Map.of());
+      if (trackea) {
+        var row = selladoPorVariante.get(v.getId());
+        long disponible = row == null ? 0 : row.getStock() - selladoReservado.getOrDefault(v.getId(), 0L);
+        if (disponible <= 0)
+          continue;
+        agg.sumar(v, disponible, row.getPrecioMin(), porSet.getOrDefault(ImagenSet.SELLADO, List.of()));
+        agg.ingreso(row.getUltimoIngreso());
+      } else {
+        agg.sumar(v, stockNoTrackeado.getOrDefault(v.getId(), 0L), v.getPrecioBase(),
+            porSet.getOrDefault(ImagenSet.CATALOGO, List.of()));
+        agg.ingreso(v.getCreatedAt());
+      }
+    }
+
+    var tipo = trackea ? TipoCatalogoItem.TRACKED_SELLADO_AGREGADO : TipoCatalogoItem.NO_TRACK_AGREGADO;
+    if (agg.stockTotal > 0) {
+      out.add(agg.item(m, tipo));
+    } else if (out.isEmpty()) {
+      out.add(sinStock(m, tipo));
+    }
+    return out;
+  }
+
+  private CatalogoItemDTO itemUsado(Modelo m, Unidad u) {
+    var v = u.getVariante();
+    BigDecimal override = u.getPrecioOverride();
+    var imgs = imagenes.getOrDefault(v.getId(), Map.of()).getOrDefault(ImagenSet.USADO, List.of());
+    return new CatalogoItemDTO(
+        u.getId(),
+        m.getId(),
+        m.getNombre(),
+        m.getCategoria().getId(),
+        m.getCategoria().getNombre(),
+        m.getMarca().getId(),
+        m.getMarca().getNombre(),
+        TipoCatalogoItem.TRACKED_USADO_UNIDAD,
+        v.getColor() != null ? v.getColor().getNombre() : null,
+        v.getCapacidad() != null ? v.getCapacidad().getEtiqueta() : null,
+        u.getBateriaCondicionPct(),
+        override != null ? override : v.getPrecioBase(),
+        true,
+        1L,
+        List.of(),
+        List.of(),
+        imgs,
+        u.getCreatedAt());
+  }
+
+  private static CatalogoItemDTO sinStock(Modelo m, TipoCatalogoItem tipo) {
+    return new CatalogoItemDTO(
+        m.getId(),
+        m.getId(),
+        m.getNombre(),
+        m.getCategoria().getId(),
+        m.getCategoria().getNombre(),
+        m.getMarca().getId(),
+        m.getMarca().getNombre(),
+        tipo,
+        null,
+        null,
+        null,
+        null,
+        false,
+        0L,
+        List.of(),
+        List.of(),
+        List.of(),
+        null);
+  }
+
+  /**
+   * Ordena con {@link #ORDEN}, pero pasando cada texto a minúsculas una sola
+   * vez por item en lugar de en cada comparación. Las claves son ese texto
+   * comparado por código, no claves de un {@code Collator}: el orden tiene
+   * que ser el mismo que el de los cursores de {@link CatalogoClaveOrden}.
+   */
+  static List<CatalogoItemDTO> ordenar(List<CatalogoItemDTO> items) {
+    var claves = new ClaveOrden[items.size()];
+    for (int i = 0; i < claves.length; i++) {
+      claves[i] = ClaveOrden.de(items.get(i));
+    }
+    Arrays.sort(claves);
+    var out = new ArrayList<CatalogoItemDTO>(claves.length);
+    for (var c : claves) {
+      out.add(c.item());
+    }
+    return out;
+  }
+
+  private record ClaveOrden(String modelo, int tipo, String color, long itemId, CatalogoItemDTO item)
+      implements Comparable<ClaveOrden> {
+
+    static ClaveOrden de(CatalogoItemDTO dto) {
+      return new ClaveOrden(minusculas(dto.modeloNombre()), RANGO_TIPO[dto.tipo().ordinal()],
+          minusculas(dto.color()), dto.itemId() == null ? 0L : dto.itemId(), dto);
+    }
+
+    @Override
+    public int compareTo(ClaveOrden o) {
+      int cmp = modelo.compareTo(o.modelo);
+      if (cmp != 0)
+        return cmp;
+      cmp = Integer.compare(tipo, o.tipo);
+      if (cmp != 0)
+        return cmp;
+      cmp = color.compareTo(o.color);
+      return cmp != 0 ? cmp : Long.compare(itemId, o.itemId);
+    }
+  }
+
+  private static String minusculas(String s) {
+    return s == null ? "" : s.toLowerCase();
+  }
+
+  private static int[] rangoTipo() {
+    var tipos = TipoCatalogoItem.values();
+    var porNombre = tipos.clone();
+    Arrays.sort(porNombre, Comparator.comparing(TipoCatalogoItem::name));
+    var rango = new int[tipos.length];
+    for (int i = 0; i < porNombre.length; i++) {
+      rango[porNombre[i].ordinal()] = i;
+    }
+    return rango;
+  }
+
+  private static final class Agregado {
+    long stockTotal;
+    BigDecimal precioMin;
+    Instant ultimoIngreso;
+    List<VarianteImagenDTO> imagenes = List.of();
+    final List<Opcion> opciones = new ArrayList<>();
+
+    void sumar(Variante v, long stock, BigDecimal precio, List<VarianteImagenDTO> imgs) {
+      if (stock > 0) {
+        stockTotal += stock;
+        opcion(v).stock += stock;
+      }
+      if (precio != null && (precioMin == null || precio.compareTo(precioMin) < 0))
+        precioMin = precio;
+      if (imagenes.isEmpty() && !imgs.isEmpty())
+        imagenes = imgs;
+    }
+
+    void ingreso(Instant creado) {
+      if (creado != null && (ultimoIngreso == null || creado.isAfter(ultimoIngreso)))
+        ultimoIngreso = creado;
+    }
+
+    // Un modelo tiene pocas variantes: buscar linealmente por ids no aloca nada.
+    private Opcion opcion(Variante v) {
+      long colorId = v.getColor() != null ? v.getColor().getId() : 0L;
+      long capacidadId = v.getCapacidad() != null ? v.getCapacidad().getId() : 0L;
+      for (var o : opciones) {
+        if (o.colorId == colorId && o.capacidadId == capacidadId)
+          return o;
+      }
+      var o = new Opcion(colorId, capacidadId,
+          v.getColor() != null ? v.getColor().getNombre() : null,
+          v.getCapacidad() != null ? v.getCapacidad().getEtiqueta() : null);
+      opciones.add(o);
+      return o;
+    }
+
+    CatalogoItemDTO item(Modelo m, TipoCatalogoItem tipo) {
+      var colores = new ArrayList<String>();
+      var variantes = new ArrayList<VarianteOpcionCatalogoDTO>(opciones.size());
+      for (int i = 0; i < opciones.size(); i++) {
+        var o = opciones.get(i);
+        variantes.add(new VarianteOpcionCatalogoDTO(o.color, o.capacidad, o.stock));
+        if (o.color != null && !colorPrevio(i))
+          colores.add(o.color);
+      }
+      return new CatalogoItemDTO(
+          m.getId(),
+          m.getId(),
+          m.getNombre(),
+          m.getCategoria().getId(),
+          m.getCategoria().getNombre(),
+          m.getMarca().getId(),
+          m.getMarca().getNombre(),
+          tipo,
+          null,
+          null,
+          null,
+          precioMin,
+          true,
+          stockTotal,
+          colores,
+          List.copyOf(variantes),
+          imagenes,
+          ultimoIngreso);
+    }
+
+    private boolean colorPrevio(int hasta) {
+      long colorId = opciones.get(hasta).colorId;
+      for (int i = 0; i < hasta; i++) {
+        if (opciones.get(i).colorId == colorId)
+          return true;
+      }
+      return false;
+    }
+  }
+
+  private static final class Opcion {
+    final long colorId;
+    final long capacidadId;
+    final String color;
+    final String capacidad;
+    long stock;
+
+    Opcion(long colorId, long capacidadId, String color, String capacidad) {
+      this.colorId = colorId;
+      this.capacidadId = capacidadId;
+      this.color = color;
+      this.capacidad = capacidad;
+    }
+  }
+}
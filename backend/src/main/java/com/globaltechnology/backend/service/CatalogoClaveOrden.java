@@ -0,0 +1,87 @@
+package com.globaltechnology.backend.service;
+
+import com.globaltechnology.backend.web.dto.OrdenCatalogo;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Comparator;
+
+/**
+ * Valores por los que se ordena un item del catálogo. También es el
+ * contenido del cursor de paginación: la página siguiente arranca en el
+ * primer item estrictamente mayor que la clave del último devuelto.
+ */
+record CatalogoClaveOrden(BigDecimal precio, String nombre, String tipo, String color, long itemId) {
+
+  private static final String SEP = "\u001f";
+
+  private static final Comparator<CatalogoClaveOrden> POR_NOMBRE = Comparator
+      .comparing(CatalogoClaveOrden::nombre)
+      .thenComparing(CatalogoClaveOrden::tipo)
+      .thenComparing(CatalogoClaveOrden::color)
+      .thenComparingLong(CatalogoClaveOrden::itemId);
+
+  private static final Comparator<CatalogoClaveOrden> POR_PRECIO_ASC = Comparator
+      .comparing(CatalogoClaveOrden::precio, Comparator.nullsLast(Comparator.<BigDecimal>naturalOrder()))
+      .thenComparing(POR_NOMBRE);
+
+  private static final Comparator<CatalogoClaveOrden> POR_PRECIO_DESC = Comparator
+      .comparing(CatalogoClaveOrden::precio, Comparator.nullsLast(Comparator.<BigDecimal>reverseOrder()))
+      .thenComparing(POR_NOMBRE);
+
+  static CatalogoClaveOrden de(CatalogoColumnas items, int i) {
+    return new CatalogoClaveOrden(
+        items.precio(i),
+        lower(items.texto(items.modeloNombre(i))),
+        items.tipo(i).name(),
+        lower(items.texto(items.color(i))),
+        items.itemId(i));
+  }
+
+  static Comparator<CatalogoClaveOrden> comparador(OrdenCatalogo orden) {
+    return switch (orden) {
+      case NOMBRE -> POR_NOMBRE;
+      case PRECIO_ASC -> POR_PRECIO_ASC;
+      case PRECIO_DESC -> POR_PRECIO_DESC;
+    };
+  }
+
+  /** Posiciones de {@code items} ordenadas según {@code orden}. */
+  static int[] ordenar(CatalogoColumnas items, OrdenCatalogo orden) {
+    var cmp = comparador(orden);
+    var claves = new CatalogoClaveOrden[items.tamanio()];
+    var posiciones = new Integer[claves.length];
+    for (int i = 0; i < claves.length; i++) {
+      claves[i] = de(items, i);
+      posiciones[i] = i;
+    }
+    Arrays.sort(posiciones, (a, b) -> cmp.compare(claves[a], claves[b]));
+    return Arrays.stream(posiciones).mapToInt(Integer::intValue).toArray();
+  }
+
+  String aCursor() {
+    var raw = String.join(SEP,
+        precio == null ? "" : precio.toPlainString(), nombre, tipo, color, Long.toString(itemId));
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+  }
+
+  static CatalogoClaveOrden deCursor(String cursor) {
+    try {
+      var raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+      var partes = raw.split(SEP, -1);
+      return new CatalogoClaveOrden(
+          partes[0].isEmpty() ? null : new BigDecimal(partes[0]),
+          partes[1], partes[2], partes[3], Long.parseLong(partes[4]));
+    } catch (RuntimeException ex) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Cursor inválido");
+    }
+  }
+
+  private static String lower(String s) {
+    return s == null ? "" : s.toLowerCase();
+  }
+}
@@ -0,0 +1,380 @@
+package com.globaltechnology.backend.service;
+
+import com.globaltechnology.backend.web.dto.CatalogoItemClave;
+import com.globaltechnology.backend.web.dto.CatalogoItemDTO;
+import com.globaltechnology.backend.web.dto.CatalogoItemResumenDTO;
+import com.globaltechnology.backend.web.dto.TipoCatalogoItem;
+import com.globaltechnology.backend.web.dto.VarianteImagenDTO;
+import com.globaltechnology.backend.web.dto.VarianteOpcionCatalogoDTO;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+
+/**
+ * Items del catálogo guardados por columnas: ids y stock en arreglos
+ * primitivos, precios en centavos, fechas en microsegundos y los textos (modelo, marca, categoría,
+ * color, capacidad) codificados contra un diccionario compartido. Los DTOs se
+ * arman recién cuando se devuelve un item.
+ *
+ * <p>
+ * Las listas por item (colores, opciones e imágenes) se guardan como tramos
+ * de un único arreglo: {@code desde[i]} a {@code desde[i + 1]}.
+ */
+final class CatalogoColumnas {
+  static final int NULO = -1;
+  static final long SIN_VALOR = Long.MIN_VALUE;
+  private static final TipoCatalogoItem[] TIPOS = TipoCatalogoItem.values();
+
+  private final int tamanio;
+  private final long[] itemIds;
+  private final long[] modeloIds;
+  private final long[] categoriaIds;
+  private final long[] marcaIds;
+  private final byte[] tipos;
+  private final byte[] baterias;
+  private final long[] preciosCentavos;
+  private final long[] stocks;
+  private final long[] creadosMicros;
+  private final BitSet enStock;
+
+  private final int[] modeloNombres;
+  private final int[] categoriaNombres;
+  private final int[] marcaNombres;
+  private final int[] colores;
+  private final int[] capacidades;
+
+  private final int[] coloresStockDesde;
+  private final int[] coloresStock;
+  private final int[] opcionesDesde;
+  private final int[] opcionColores;
+  private final int[] opcionCapacidades;
+  private final long[] opcionStocks;
+  private final int[] imagenesDesde;
+  private final VarianteImagenDTO[] imagenes;
+
+  private final String[] textos;
+  private final String[] textosNormalizados;
+
+  // Por tipo: ids de item ordenados y la posición de cada uno.
+  private final long[][] idsPorTipo;
+  private final int[][] posicionesPorTipo;
+
+  private CatalogoColumnas(List<CatalogoItemDTO> items) {
+    int n = items.size();
+    tamanio = n;
+    itemIds = new long[n];
+    modeloIds = new long[n];
+    categoriaIds = new long[n];
+    marcaIds = new long[n];
+    tipos = new byte[n];
+    baterias = new byte[n];
+    preciosCentavos = new long[n];
+    stocks = new long[n];
+    creadosMicros = new long[n];
+    enStock = new BitSet(n);
+    modeloNombres = new int[n];
+    categoriaNombres = new int[n];
+    marcaNombres = new int[n];
+    colores = new int[n];
+    capacidades = new int[n];
+
+    int totalColores = 0;
+    int totalOpciones = 0;
+    int totalImagenes = 0;
+    for (var item : items) {
+      totalColores += item.coloresEnStock().size();
+      totalOpciones += item.variantesEnStock().size();
+      totalImagenes += item.imagenes().size();
+    }
+    coloresStockDesde = new int[n + 1];
+    coloresStock = new int[totalColores];
+    opcionesDesde = new int[n + 1];
+    opcionColores = new int[totalOpciones];
+    opcionCapacidades = new int[totalOpciones];
+    opcionStocks = new long[totalOpciones];
+    imagenesDesde = new int[n + 1];
+    imagenes = new VarianteImagenDTO[totalImagenes];
+
+    var diccionario = new Diccionario();
+    int c = 0;
+    int o = 0;
+    int im = 0;
+    for (int i = 0; i < n; i++) {
+      var item = items.get(i);
+      itemIds[i] = item.itemId();
+      modeloIds[i] = item.modeloId();
+      categoriaIds[i] = item.categoriaId();
+      marcaIds[i] = item.marcaId();
+      tipos[i] = (byte) item.tipo().ordinal();
+      baterias[i] = item.bateriaCondicionPct() == null ? NULO : item.bateriaCondicionPct().byteValue();
+      preciosCentavos[i] = aCentavos(item.precio());
+      stocks[i] = item.stockTotal() == null ? 0L : item.stockTotal();
+      creadosMicros[i] = aMicros(item.createdAt());
+      if (item.enStock())
+        enStock.set(i);
+
+      modeloNombres[i] = diccionario.codigo(item.modeloNombre());
+      categoriaNombres[i] = diccionario.codigo(item.categoriaNombre());
+      marcaNombres[i] = diccionario.codigo(item.marcaNombre());
+      colores[i] = diccionario.codigo(item.color());
+      capacidades[i] = diccionario.codigo(item.capacidad());
+
+      coloresStockDesde[i] = c;
+      for (var color : item.coloresEnStock()) {
+        coloresStock[c++] = diccionario.codigo(color);
+      }
+      opcionesDesde[i] = o;
+      for (var v : item.variantesEnStock()) {
+        opcionColores[o] = diccionario.codigo(v.color());
+        opcionCapacidades[o] = diccionario.codigo(v.capacidad());
+        opcionStocks[o++] = v.stock();
+      }
+      imagenesDesde[i] = im;
+      for (var img : item.imagenes()) {
+        imagenes[im++] = img;
+      }
+    }
+    coloresStockDesde[n] = c;
+    opcionesDesde[n] = o;
+    imagenesDesde[n] = im;
+
+    textos = diccionario.textos();
+    textosNormalizados = new String[textos.length];
+    for (int k = 0; k < textos.length; k++) {
+      textosNormalizados[k] = CatalogoFiltro.normalizar(textos[k]);
+    }
+
+    idsPorTipo = new long[TIPOS.length][];
+    posicionesPorTipo = new int[TIPOS.length][];
+    indexarPorTipo();
+  }
+
+  static CatalogoColumnas de(List<CatalogoItemDTO> items) {
+    return new CatalogoColumnas(items);
+  }
+
+  int tamanio() {
+    return tamanio;
+  }
+
+  TipoCatalogoItem tipo(int i) {
+    return TIPOS[tipos[i]];
+  }
+
+  boolean enStock(int i) {
+    return enStock.get(i);
+  }
+
+  long itemId(int i) {
+    return itemIds[i];
+  }
+
+  long modeloId(int i) {
+    return modeloIds[i];
+  }
+
+  long categoriaId(int i) {
+    return categoriaIds[i];
+  }
+
+  long marcaId(int i) {
+    return marcaIds[i];
+  }
+
+  boolean tienePrecio(int i) {
+    return preciosCentavos[i] != SIN_VALOR;
+  }
+
+  long precioCentavos(int i) {
+    return preciosCentavos[i];
+  }
+
+  /** Microsegundos desde la época, o {@link #SIN_VALOR}. */
+  long creadoMicros(int i) {
+    return creadosMicros[i];
+  }
+
+  BigDecimal precio(int i) {
+    return tienePrecio(i) ? BigDecimal.valueOf(preciosCentavos[i], 2) : null;
+  }
+
+  /** {@link #NULO} si el item no tiene batería informada. */
+  int bateria(int i) {
+    return baterias[i];
+  }
+
+  int modeloNombre(int i) {
+    return modeloNombres[i];
+  }
+
+  int categoriaNombre(int i) {
+    return categoriaNombres[i];
+  }
+
+  int marcaNombre(int i) {
+    return marcaNombres[i];
+  }
+
+  int color(int i) {
+    return colores[i];
+  }
+
+  int capacidad(int i) {
+    return capacidades[i];
+  }
+
+  int opcionesDesde(int i) {
+    return opcionesDesde[i];
+  }
+
+  int opcionesHasta(int i) {
+    return opcionesDesde[i + 1];
+  }
+
+  int opcionColor(int k) {
+    return opcionColores[k];
+  }
+
+  int opcionCapacidad(int k) {
+    return opcionCapacidades[k];
+  }
+
+  int cantidadTextos() {
+    return textos.length;
+  }
+
+  String texto(int codigo) {
+    return codigo == NULO ? null : textos[codigo];
+  }
+
+  String textoNormalizado(int codigo) {
+    return codigo == NULO ? null : textosNormalizados[codigo];
+  }
+
+  /** Posición del item con esa clave, o {@link #NULO} si no está. */
+  int posicion(CatalogoItemClave clave) {
+    return posicion(clave.tipo(), clave.itemId());
+  }
+
+  int posicion(TipoCatalogoItem tipo, long itemId) {
+    int k = Arrays.binarySearch(idsPorTipo[tipo.ordinal()], itemId);
+    return k < 0 ? NULO : posicionesPorTipo[tipo.ordinal()][k];
+  }
+
+  CatalogoItemDTO item(int i) {
+    var coloresDTO = new ArrayList<String>(coloresStockDesde[i + 1] - coloresStockDesde[i]);
+    for (int k = coloresStockDesde[i]; k < coloresStockDesde[i + 1]; k++) {
+      coloresDTO.add(textos[coloresStock[k]]);
+    }
+    var opciones = new ArrayList<VarianteOpcionCatalogoDTO>(opcionesHasta(i) - opcionesDesde(i));
+    for (int k = opcionesDesde(i); k < opcionesHasta(i); k++) {
+      opciones.add(new VarianteOpcionCatalogoDTO(texto(opcionColores[k]), texto(opcionCapacidades[k]),
+          opcionStocks[k]));
+    }
+    return new CatalogoItemDTO(
+        itemIds[i],
+        modeloIds[i],
+        textos[modeloNombres[i]],
+        categoriaIds[i],
+        textos[categoriaNombres[i]],
+        marcaIds[i],
+        textos[marcaNombres[i]],
+        tipo(i),
+        texto(colores[i]),
+        texto(capacidades[i]),
+        baterias[i] == NULO ? null : (int) baterias[i],
+        precio(i),
+        enStock(i),
+        stocks[i],
+        coloresDTO,
+        opciones,
+        List.of(Arrays.copyOfRange(imagenes, imagenesDesde[i], imagenesDesde[i + 1])),
+        creadosMicros[i] == SIN_VALOR ? null : Instant.EPOCH.plus(creadosMicros[i], ChronoUnit.MICROS));
+  }
+
+  CatalogoItemResumenDTO resumen(int i) {
+    var imagen = imagenesDesde[i] < imagenesDesde[i + 1] ? imagenes[imagenesDesde[i]] : null;
+    return new CatalogoItemResumenDTO(
+        itemIds[i],
+        textos[modeloNombres[i]],
+        texto(colores[i]),
+        texto(capacidades[i]),
+        baterias[i] == NULO ? null : (int) baterias[i],
+        tipo(i),
+        precio(i),
+        imagen != null ? imagen.url() : null);
+  }
+
+  /** Vista de solo lectura que arma cada DTO al pedirlo. */
+  List<CatalogoItemDTO> items() {
+    return new Items();
+  }
+
+  private final class Items extends AbstractList<CatalogoItemDTO> implements RandomAccess {
+    @Override
+    public CatalogoItemDTO get(int index) {
+      Objects.checkIndex(index, tamanio);
+      return item(index);
+    }
+
+    @Override
+    public int size() {
+      return tamanio;
+    }
+  }
+
+  private void indexarPorTipo() {
+    var cantidades = new int[TIPOS.length];
+    for (int i = 0; i < tamanio; i++) {
+      cantidades[tipos[i]]++;
+    }
+    for (int t = 0; t < TIPOS.length; t++) {
+      var posiciones = new Integer[cantidades[t]];
+      int k = 0;
+      for (int i = 0; i < tamanio; i++) {
+        if (tipos[i] == t)
+          posiciones[k++] = i;
+      }
+      Arrays.sort(posiciones, Comparator.comparingLong(p -> itemIds[p]));
+      idsPorTipo[t] = new long[posiciones.length];
+      posicionesPorTipo[t] = new int[posiciones.length];
+      for (k = 0; k < posiciones.length; k++) {
+        idsPorTipo[t][k] = itemIds[posiciones[k]];
+        posicionesPorTipo[t][k] = posiciones[k];
+      }
+    }
+  }
+
+  static long aCentavos(BigDecimal precio) {
+    if (precio == null)
+      return SIN_VALOR;
+    return precio.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+  }
+
+  static long aMicros(Instant instante) {
+    if (instante == null)
+      return SIN_VALOR;
+    return Math.addExact(Math.multiplyExact(instante.getEpochSecond(), 1_000_000L), instante.getNano() / 1_000);
+  }
+
+  private static final class Diccionario {
+    private final Map<String, Integer> codigos = new HashMap<>();
+    private final List<String> textos = new ArrayList<>();
+
+    int codigo(String texto) {
+      if (texto == null)
+        return NULO;
+      return codigos.computeIfAbsent(texto, t -> {
+        textos.add(t);
+        return textos.size() - 1;
+      });
+    }
+
+    String[] textos() {
+      return textos.toArray(String[]::new);
+    }
+  }
+}
@@ -0,0 +1,274 @@
+package com.globaltechnology.backend.service;
+
+import com.globaltechnology.backend.web.dto.CatalogoFacetasDTO;
+import com.globaltechnology.backend.web.dto.CatalogoItemDTO;
+import com.globaltechnology.backend.web.dto.FacetaValorDTO;
+import com.globaltechnology.backend.web.dto.TipoCatalogoItem;
+
+import java.math.BigDecimal;
+import java.util.*;
+
+/**
+ * Conteos por faceta sobre los items en stock de una
+ * {@link CatalogoSnapshot.Vista}. Cada valor de faceta guarda un {@link BitSet}
+ * con las posiciones de los items que lo tienen, así que cualquier combinación
+ * de filtros se resuelve con AND/OR de bitsets.
+ *
+ * <p>
+ * Color y capacidad son la excepción: como en {@link CatalogoFiltro}, tienen
+ * que darse en la misma opción del item, así que cuando se filtra por alguno
+ * de los dos se revisan las opciones de los items que quedan.
+ */
+final class CatalogoFacetas {
+  static final BigDecimal[] LIMITES_PRECIO = {
+      new BigDecimal("100"), new BigDecimal("300"), new BigDecimal("600"), new BigDecimal("1000") };
+
+  private final BitSet enStock;
+  private final Map<TipoCatalogoItem, BitSet> porTipo;
+  private final Faceta categorias;
+  private final Faceta marcas;
+  private final Faceta colores;
+  private final Faceta capacidades;
+  private final Faceta precios;
+  // Claves normalizadas de color y capacidad de cada opción, por posición.
+  private final String[][] opcionColor;
+  private final String[][] opcionCapacidad;
+
+  private CatalogoFacetas(BitSet enStock, Map<TipoCatalogoItem, BitSet> porTipo, Faceta categorias,
+      Faceta marcas, Faceta colores, Faceta capacidades, Faceta precios, String[][] opcionColor,
+      String[][] opcionCapacidad) {
+    this.enStock = enStock;
+    this.porTipo = porTipo;
+    this.categorias = categorias;
+    this.marcas = marcas;
+    this.colores = colores;
+    this.capacidades = capacidades;
+    this.precios = precios;
+    this.opcionColor = opcionColor;
+    this.opcionCapacidad = opcionCapacidad;
+  }
+
+  static CatalogoFacetas de(List<CatalogoItemDTO> items) {
+    var enStock = new BitSet(items.size());
+    var porTipo = new EnumMap<TipoCatalogoItem, BitSet>(TipoCatalogoItem.class);
+    var categorias = new Faceta();
+    var marcas = new Faceta();
+    var colores = new Faceta();
+    var capacidades = new Faceta();
+    var precios = new Faceta();
+    var opcionColor = new String[items.size()][];
+    var opcionCapacidad = new String[items.size()][];
+
+    for (int i = 0; i < items.size(); i++) {
+      var item = items.get(i);
+      if (!item.enStock())
+        continue;
+      enStock.set(i);
+      porTipo.computeIfAbsent(item.tipo(), t -> new BitSet()).set(i);
+
+      categorias.marcar(String.valueOf(item.categoriaId()), item.categoriaNombre(), i);
+      marcas.marcar(String.valueOf(item.marcaId()), item.marcaNombre(), i);
+
+      if (item.tipo() == TipoCatalogoItem.TRACKED_USADO_UNIDAD) {
+        colores.marcar(item.color(), item.color(), i);
+        capacidades.marcar(item.capacidad(), item.capacidad(), i);
+        opcionColor[i] = new String[] { clave(item.color()) };
+        opcionCapacidad[i] = new String[] { clave(item.capacidad()) };
+      } else {
+        var variantes = item.variantesEnStock();
+        opcionColor[i] = new String[variantes.size()];
+        opcionCapacidad[i] = new String[variantes.size()];
+        for (int k = 0; k < variantes.size(); k++) {
+          var v = variantes.get(k);
+          colores.marcar(v.color(), v.color(), i);
+          capacidades.marcar(v.capacidad(), v.capacidad(), i);
+          opcionColor[i][k] = clave(v.color());
+          opcionCapacidad[i][k] = clave(v.capacidad());
+        }
+      }
+
+      var rango = rangoPrecio(item.precio());
+      if (rango != null)
+        precios.marcar(rango, rango, i);
+    }
+
+    categorias.ordenarPorEtiqueta();
+    marcas.ordenarPorEtiqueta();
+    colores.ordenarPorEtiqueta();
+    capacidades.ordenarPorEtiqueta();
+    precios.ordenarPor(Comparator.comparing(v -> desdeRango(v.valor())));
+
+    return new CatalogoFacetas(enStock, porTipo, categorias, marcas, colores, capacidades, precios,
+        opcionColor, opcionCapacidad);
+  }
+
+  /**
+   * Cada faceta se cuenta aplicando los filtros de las demás, para que el
+   * usuario vea cuántos items sumaría eligiendo otro valor de la misma.
+   */
+  CatalogoFacetasDTO contar(CatalogoFacetasFiltro filtro) {
+    var base = (BitSet) enStock.clone();
+    if (filtro.tipo() != null)
+      base.and(porTipo.getOrDefault(filtro.tipo(), new BitSet()));
+
+    var mCategorias = categorias.mascara(filtro.categorias());
+    var mMarcas = marcas.mascara(filtro.marcas());
+    var mPrecios = precios.mascara(filtro.precios());
+    var mColores = colores.mascara(filtro.colores());
+    var mCapacidades = capacidades.mascara(filtro.capacidades());
+    var mOpciones = opciones(base, mColores, mCapacidades, filtro.colores(), filtro.capacidades());
+    var mascaras = Arrays.asList(mCategorias, mMarcas, mOpciones, mPrecios);
+
+    var total = aplicar(base, mascaras, -1);
+    var sinOpciones = aplicar(base, mascaras, 2);
+    return new CatalogoFacetasDTO(
+        total.cardinality(),
+        categorias.contar(aplicar(base, mascaras, 0), filtro.categorias()),
+        marcas.contar(aplicar(base, mascaras, 1), filtro.marcas()),
+        contarOpciones(colores, sinOpciones, mCapacidades, opcionColor, opcionCapacidad, filtro.capacidades(),
+            filtro.colores()),
+        contarOpciones(capacidades, sinOpciones, mColores, opcionCapacidad, opcionColor, filtro.colores(),
+            filtro.capacidades()),
+        precios.contar(aplicar(base, mascaras, 3), filtro.precios()));
+  }
+
+  /**
+   * Items con alguna opción cuyo color y capacidad estén elegidos (lo que no se
+   * eligió no restringe); {@code null} si no se eligió ninguno de los dos.
+   * Solo se revisan las opciones de los items que tienen los dos valores por
+   * separado.
+   */
+  private BitSet opciones(BitSet universo, BitSet mColores, BitSet mCapacidades, Set<String> colores,
+      Set<String> capacidades) {
+    if (mColores == null || mCapacidades == null)
+      return mColores != null ? mColores : mCapacidades;
+    var candidatos = (BitSet) universo.clone();
+    candidatos.and(mColores);
+    candidatos.and(mCapacidades);
+    var out = new BitSet();
+    for (int i = candidatos.nextSetBit(0); i >= 0; i = candidatos.nextSetBit(i + 1)) {
+      for (int k = 0; k < opcionColor[i].length; k++) {
+        if (elegido(colores, opcionColor[i][k]) && elegido(capacidades, opcionCapacidad[i][k])) {
+          out.set(i);
+          break;
+        }
+      }
+    }
+    return out;
+  }
+
+  /**
+   * Cuenta una de las dos facetas de opción contra lo elegido en la otra: un
+   * valor suma el item solo si aparece en una opción que también cumple la
+   * otra faceta.
+   */
+  private static List<FacetaValorDTO> contarOpciones(Faceta faceta, BitSet universo, BitSet mascaraOtra,
+      String[][] propias, String[][] otras, Set<String> seleccionOtra, Set<String> seleccion) {
+    if (mascaraOtra == null)
+      return faceta.contar(universo, seleccion);
+    var candidatos = (BitSet) universo.clone();
+    candidatos.and(mascaraOtra);
+    var bits = new HashMap<String, BitSet>();
+    for (int i = candidatos.nextSetBit(0); i >= 0; i = candidatos.nextSetBit(i + 1)) {
+      for (int k = 0; k < propias[i].length; k++) {
+        if (propias[i][k] != null && otras[i][k] != null && seleccionOtra.contains(otras[i][k]))
+          bits.computeIfAbsent(propias[i][k], c -> new BitSet()).set(i);
+      }
+    }
+    return faceta.contar(bits, seleccion);
+  }
+
+  private static boolean elegido(Set<String> seleccion, String clave) {
+    return seleccion.isEmpty() || (clave != null && seleccion.contains(clave));
+  }
+
+  private static String clave(String valor) {
+    return valor == null ? null : CatalogoFiltro.normalizar(valor);
+  }
+
+  private static BitSet aplicar(BitSet base, List<BitSet> mascaras, int excluida) {
+    var out = (BitSet) base.clone();
+    for (int i = 0; i < mascaras.size(); i++) {
+      if (i != excluida && mascaras.get(i) != null)
+        out.and(mascaras.get(i));
+    }
+    return out;
+  }
+
+  static String rangoPrecio(BigDecimal precio) {
+    if (precio == null)
+      return null;
+    BigDecimal desde = BigDecimal.ZERO;
+    for (var limite : LIMITES_PRECIO) {
+      if (precio.compareTo(limite) < 0)
+        return desde.toPlainString() + "-" + limite.toPlainString();
+      desde = limite;
+    }
+    return desde.toPlainString() + "-";
+  }
+
+  private static BigDecimal desdeRango(String rango) {
+    return new BigDecimal(rango.substring(0, rango.indexOf('-')));
+  }
+
+  private static final class Faceta {
+    private record Valor(String valor, String etiqueta, BitSet bits) {
+    }
+
+    private final Map<String, Valor> porClave = new LinkedHashMap<>();
+    private List<Valor> ordenados = List.of();
+
+    void marcar(String valor, String etiqueta, int posicion) {
+      if (valor == null)
+        return;
+      porClave.computeIfAbsent(CatalogoFiltro.normalizar(valor), k -> new Valor(valor, etiqueta, new BitSet()))
+          .bits().set(posicion);
+    }
+
+    void ordenarPorEtiqueta() {
+      ordenarPor(Comparator.comparing(Valor::etiqueta, String.CASE_INSENSITIVE_ORDER));
+    }
+
+    void ordenarPor(Comparator<Valor> cmp) {
+      var lista = new ArrayList<>(porClave.values());
+      lista.sort(cmp);
+      ordenados = List.copyOf(lista);
+    }
+
+    /** {@code null} si no hay nada elegido en esta faceta. */
+    BitSet mascara(Set<String> seleccion) {
+      if (seleccion.isEmpty())
+        return null;
+      var out = new BitSet();
+      for (var clave : seleccion) {
+        var v = porClave.get(clave);
+        if (v != null)
+          out.or(v.bits());
+      }
+      return out;
+    }
+
+    List<FacetaValorDTO> contar(BitSet universo, Set<String> seleccion) {
+      var out = new ArrayList<FacetaValorDTO>(ordenados.size());
+      for (var v : ordenados) {
+        var bits = (BitSet) v.bits().clone();
+        bits.and(universo);
+        out.add(new FacetaValorDTO(v.valor(), v.etiqueta(), bits.cardinality(),
+            seleccion.contains(CatalogoFiltro.normalizar(v.valor()))));
+      }
+      return out;
+    }
+
+    /** Con los items de cada valor ya calculados, por clave normalizada. */
+    List<FacetaValorDTO> contar(Map<String, BitSet> porValor, Set<String> seleccion) {
+      var out = new ArrayList<FacetaValorDTO>(ordenados.size());
+      for (var v : ordenados) {
+        var clave = CatalogoFiltro.normalizar(v.valor());
+        var bits = porValor.get(clave);
+        out.add(new FacetaValorDTO(v.valor(), v.etiqueta(), bits == null ? 0 : bits.cardinality(),
+            seleccion.contains(clave)));
+      }
+      return out;
+    }
+  }
+}
@@ -0,0 +1,37 @@
+package com.globaltechnology.backend.service;
+
+import com.globaltechnology.backend.web.dto.TipoCatalogoItem;
+
+import java.util.Collection;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Valores elegidos en cada faceta. Dentro de una faceta los valores se
+ * combinan con OR y entre facetas con AND; una faceta vacía no filtra.
+ */
+public record CatalogoFacetasFiltro(
+    TipoCatalogoItem tipo,
+    Set<String> categorias,
+    Set<String> marcas,
+    Set<String> colores,
+    Set<String> capacidades,
+    Set<String> precios) {
+
+  public CatalogoFacetasFiltro {
+    categorias = normalizar(categorias);
+    marcas = normalizar(marcas);
+    colores = normalizar(colores);
+    capacidades = normalizar(capacidades);
+    precios = normalizar(precios);
+  }
+
+  private static Set<String> normalizar(Collection<String> valores) {
+    if (valores == null)
+      return Set.of();
+    return valores.stream()
+        .filter(v -> v != null && !v.isBlank())
+        .map(v -> CatalogoFiltro.normalizar(v.trim()))
+        .collect(Collectors.toUnmodifiableSet());
+  }
+}
@@ -0,0 +1,190 @@
+package com.globaltechnology.backend.service;
+
+import com.globaltechnology.backend.web.dto.TipoCatalogoItem;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.text.Normalizer;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.IntPredicate;
+
+public record CatalogoFiltro(
+    TipoCatalogoItem tipo,
+    Long categoriaId,
+    Long marcaId,
+    String color,
+    String capacidad,
+    BigDecimal precioMin,
+    BigDecimal precioMax,
+    Integer bateriaMin,
+    Integer bateriaMax,
+    Instant creadoDesde,
+    String texto,
+    boolean soloEnStock) {
+
+  public List<String> tokens() {
+    if (texto == null || texto.isBlank())
+      return List.of();
+    return Arrays.stream(normalizar(texto).split("\\s+"))
+        .filter(t -> !t.isEmpty())
+        .toList();
+  }
+
+  /**
+   * Predicado sobre las posiciones de {@code items}. Los textos buscados se
+   * resuelven una vez contra el diccionario, así que evaluar cada item solo
+   * compara códigos y números.
+   */
+  IntPredicate sobre(CatalogoColumnas items) {
+    var porToken = tokens().stream().map(t -> textosQueContienen(items, t)).toList();
+    var colores = textosIguales(items, color);
+    var capacidades = textosIguales(items, capacidad);
+    long minCentavos = minCentavos();
+    long maxCentavos = maxCentavos();
+    long desdeMicros = creadoDesde == null ? Long.MIN_VALUE : CatalogoColumnas.aMicros(creadoDesde);
+
+    return i -> {
+      if (tipo != null && items.tipo(i) != tipo)
+        return false;
+      if (soloEnStock && !items.enStock(i))
+        return false;
+      if (categoriaId != null && categoriaId != items.categoriaId(i))
+        return false;
+      if (marcaId != null && marcaId != items.marcaId(i))
+        return false;
+      if (precioMin != null || precioMax != null) {
+        if (!items.tienePrecio(i))
+          return false;
+        long precio = items.precioCentavos(i);
+        if (precio < minCentavos || precio > maxCentavos)
+          return false;
+      }
+      if ((bateriaMin != null || bateriaMax != null) && !bateriaEnRango(items.bateria(i)))
+        return false;
+      if (creadoDesde != null && items.creadoMicros(i) < desdeMicros)
+        return false;
+      if ((colores != null || capacidades != null) && !tieneOpcion(items, i, colores, capacidades))
+        return false;
+      for (var textos : porToken) {
+        if (!contiene(items, i, textos))
+          return false;
+      }
+      return true;
+    };
+  }
+
+  /**
+   * Items que cumplen los rangos de precio, batería y fecha, resueltos sobre
+   * los índices ordenados; {@code null} si el filtro no tiene rangos.
+   */
+  BitSet candidatos(CatalogoColumnas items, CatalogoRangos rangos) {
+    BitSet out = null;
+    if (precioMin != null || precioMax != null)
+      out = intersectar(out, rangos.rango(CatalogoRangos.Campo.PRECIO, minCentavos(), maxCentavos(), items));
+    if (bateriaMin != null || bateriaMax != null)
+      out = intersectar(out, rangos.rango(CatalogoRangos.Campo.BATERIA,
+          bateriaMin == null ? Long.MIN_VALUE : bateriaMin,
+          bateriaMax == null ? Long.MAX_VALUE : bateriaMax, items));
+    if (creadoDesde != null)
+      out = intersectar(out, rangos.rango(CatalogoRangos.Campo.CREADO,
+          CatalogoColumnas.aMicros(creadoDesde), Long.MAX_VALUE, items));
+    return out;
+  }
+
+  private static BitSet intersectar(BitSet acumulado, BitSet rango) {
+    if (acumulado == null)
+      return rango;
+    acumulado.and(rango);
+    return acumulado;
+  }
+
+  private long minCentavos() {
+    return precioMin == null ? Long.MIN_VALUE : centavos(precioMin, RoundingMode.CEILING);
+  }
+
+  private long maxCentavos() {
+    return precioMax == null ? Long.MAX_VALUE : centavos(precioMax, RoundingMode.FLOOR);
+  }
+
+  private boolean bateriaEnRango(int bateria) {
+    if (bateria == CatalogoColumnas.NULO)
+      return false;
+    if (bateriaMin != null && bateria < bateriaMin)
+      return false;
+    return bateriaMax == null || bateria <= bateriaMax;
+  }
+
+  private static boolean tieneOpcion(CatalogoColumnas items, int i, BitSet colores, BitSet capacidades) {
+    if (items.tipo(i) == TipoCatalogoItem.TRACKED_USADO_UNIDAD)
+      return coincide(colores, items.color(i)) && coincide(capacidades, items.capacidad(i));
+    for (int k = items.opcionesDesde(i); k < items.opcionesHasta(i); k++) {
+      if (coincide(colores, items.opcionColor(k)) && coincide(capacidades, items.opcionCapacidad(k)))
+        return true;
+    }
+    return false;
+  }
+
+  private static boolean coincide(BitSet buscados, int codigo) {
+    return buscados == null || (codigo != CatalogoColumnas.NULO && buscados.get(codigo));
+  }
+
+  // Un token no tiene espacios, así que aparece en el texto completo del item
+  // solo si aparece en alguno de sus campos.
+  private static boolean contiene(CatalogoColumnas items, int i, BitSet textos) {
+    if (coincideAlguno(textos, items.modeloNombre(i), items.marcaNombre(i), items.categoriaNombre(i),
+        items.color(i), items.capacidad(i)))
+      return true;
+    for (int k = items.opcionesDesde(i); k < items.opcionesHasta(i); k++) {
+      if (coincideAlguno(textos, items.opcionColor(k), items.opcionCapacidad(k)))
+        return true;
+    }
+    return false;
+  }
+
+  private static boolean coincideAlguno(BitSet textos, int... codigos) {
+    for (int codigo : codigos) {
+      if (codigo != CatalogoColumnas.NULO && textos.get(codigo))
+        return true;
+    }
+    return false;
+  }
+
+  private static BitSet textosQueContienen(CatalogoColumnas items, String token) {
+    var out = new BitSet(items.cantidadTextos());
+    for (int k = 0; k < items.cantidadTextos(); k++) {
+      if (items.textoNormalizado(k).contains(token))
+        out.set(k);
+    }
+    return out;
+  }
+
+  /** {@code null} si no se busca nada: cualquier valor coincide. */
+  private static BitSet textosIguales(CatalogoColumnas items, String buscado) {
+    if (buscado == null)
+      return null;
+    var limpio = buscado.trim();
+    var out = new BitSet(items.cantidadTextos());
+    for (int k = 0; k < items.cantidadTextos(); k++) {
+      if (items.texto(k).equalsIgnoreCase(limpio))
+        out.set(k);
+    }
+    return out;
+  }
+
+  private static long centavos(BigDecimal precio, RoundingMode redondeo) {
+    var unscaled = precio.setScale(2, redondeo).unscaledValue();
+    if (unscaled.bitLength() >= Long.SIZE)
+      return unscaled.signum() > 0 ? Long.MAX_VALUE : Long.MIN_VALUE;
+    return unscaled.longValue();
+  }
+
+  static String normalizar(String s) {
+    return Normalizer.normalize(s, Normalizer.Form.NFD)
+        .replaceAll("\\p{M}", "")
+        .toLowerCase(Locale.ROOT);
+  }
+}
@@ -0,0 +1,270 @@
+package com.globaltechnology.backend.service;
+
+import com.globaltechnology.backend.web.dto.CatalogoItemDTO;
+import com.globaltechnology.backend.web.dto.TipoCatalogoItem;
+
+import java.util.*;
+import java.util.function.IntPredicate;
+import java.util.regex.Pattern;
+
+/**
+ * Índice invertido de palabras sobre los items de una {@link CatalogoSnapshot.Vista}.
+ * Las palabras candidatas de cada término se encuentran por trigramas, lo que
+ * permite prefijos ("256" → "256gb") y errores de tipeo ("iphnoe" → "iphone").
+ */
+final class CatalogoIndiceBusqueda {
+  private static final int PESO_MODELO = 4;
+  private static final int PESO_ATRIBUTO = 3;
+  private static final int PESO_MARCA = 2;
+  private static final int PESO_CATEGORIA = 1;
+  private static final int PESO_OPCION = 1;
+
+  private static final float SIM_EXACTA = 1f;
+  private static final float SIM_PREFIJO = 0.75f;
+  private static final float SIM_TIPEO = 0.6f;
+
+  private static final Pattern SEPARADORES = Pattern.compile("[^a-z0-9]+");
+  private static final Pattern LETRA_NUMERO = Pattern.compile("(?<=[a-z])(?=[0-9])|(?<=[0-9])(?=[a-z])");
+
+  private final int totalItems;
+  private final String[] palabras;
+  private final Map<String, Integer> idPorPalabra;
+  private final int[][] itemsPorPalabra;
+  private final byte[][] pesosPorPalabra;
+  private final Map<String, int[]> palabrasPorTrigrama;
+
+  private CatalogoIndiceBusqueda(int totalItems, String[] palabras, Map<String, Integer> idPorPalabra,
+      int[][] itemsPorPalabra, byte[][] pesosPorPalabra, Map<String, int[]> palabrasPorTrigrama) {
+    this.totalItems = totalItems;
+    this.palabras = palabras;
+    this.idPorPalabra = idPorPalabra;
+    this.itemsPorPalabra = itemsPorPalabra;
+    this.pesosPorPalabra = pesosPorPalabra;
+    this.palabrasPorTrigrama = palabrasPorTrigrama;
+  }
+
+  static CatalogoIndiceBusqueda de(List<CatalogoItemDTO> items) {
+    // palabra -> (posición del item -> peso), con las posiciones en orden creciente
+    var postings = new LinkedHashMap<String, LinkedHashMap<Integer, Integer>>();
+    for (int i = 0; i < items.size(); i++) {
+      var item = items.get(i);
+      var pesos = new HashMap<String, Integer>();
+      agregar(pesos, item.modeloNombre(), PESO_MODELO);
+      agregar(pesos, item.marcaNombre(), PESO_MARCA);
+      agregar(pesos, item.categoriaNombre(), PESO_CATEGORIA);
+      agregar(pesos, item.color(), PESO_ATRIBUTO);
+      agregar(pesos, item.capacidad(), PESO_ATRIBUTO);
+      if (item.tipo() != TipoCatalogoItem.TRACKED_USADO_UNIDAD) {
+        for (var v : item.variantesEnStock()) {
+          agregar(pesos, v.color(), PESO_OPCION);
+          agregar(pesos, v.capacidad(), PESO_OPCION);
+        }
+      }
+      for (var e : pesos.entrySet()) {
+        postings.computeIfAbsent(e.getKey(), k -> new LinkedHashMap<>()).put(i, e.getValue());
+      }
+    }
+
+    int n = postings.size();
+    var palabras = new String[n];
+    var idPorPalabra = new HashMap<String, Integer>(n * 2);
+    var itemsPorPalabra = new int[n][];
+    var pesosPorPalabra = new byte[n][];
+    var trigramas = new HashMap<String, List<Integer>>();
+
+    int id = 0;
+    for (var e : postings.entrySet()) {
+      var palabra = e.getKey();
+      palabras[id] = palabra;
+      idPorPalabra.put(palabra, id);
+
+      var porItem = e.getValue();
+      var docs = new int[porItem.size()];
+      var pesos = new byte[porItem.size()];
+      int k = 0;
+      for (var p : porItem.entrySet()) {
+        docs[k] = p.getKey();
+        pesos[k++] = p.getValue().byteValue();
+      }
+      itemsPorPalabra[id] = docs;
+      pesosPorPalabra[id] = pesos;
+
+      for (var t : trigramas(palabra)) {
+        trigramas.computeIfAbsent(t, x -> new ArrayList<>()).add(id);
+      }
+      id++;
+    }
+
+    var palabrasPorTrigrama = new HashMap<String, int[]>(trigramas.size() * 2);
+    trigramas.forEach((t, ids) -> palabrasPorTrigrama.put(t, ids.stream().mapToInt(Integer::intValue).toArray()));
+
+    return new CatalogoIndiceBusqueda(items.size(), palabras, idPorPalabra, itemsPorPalabra, pesosPorPalabra,
+        palabrasPorTrigrama);
+  }
+
+  /**
+   * Devuelve las posiciones de los items que coinciden con la mayor cantidad
+   * de términos, ordenadas por puntaje y, a igualdad, por posición.
+   */
+  int[] buscar(String texto, IntPredicate filtro, int limite) {
+    var terminos = new LinkedHashSet<>(tokenizar(texto));
+    if (terminos.isEmpty() || totalItems == 0)
+      return new int[0];
+
+    var coincidencias = new int[totalItems];
+    var puntaje = new float[totalItems];
+    var aporte = new float[totalItems];
+    var tocados = new int[totalItems];
+
+    for (var termino : terminos) {
+      int cantTocados = 0;
+      for (var c : candidatas(termino).entrySet()) {
+        int palabra = c.getKey();
+        float sim = c.getValue();
+        var docs = itemsPorPalabra[palabra];
+        var pesos = pesosPorPalabra[palabra];
+        for (int k = 0; k < docs.length; k++) {
+          int d = docs[k];
+          float valor = sim * pesos[k];
+          if (aporte[d] == 0f)
+            tocados[cantTocados++] = d;
+          if (valor > aporte[d])
+            aporte[d] = valor;
+        }
+      }
+      for (int k = 0; k < cantTocados; k++) {
+        int d = tocados[k];
+        coincidencias[d]++;
+        puntaje[d] += aporte[d];
+        aporte[d] = 0f;
+      }
+    }
+
+    int max = 0;
+    for (int d = 0; d < totalItems; d++) {
+      if (coincidencias[d] > max && filtro.test(d))
+        max = coincidencias[d];
+    }
+    if (max == 0)
+      return new int[0];
+
+    var resultado = new ArrayList<Integer>();
+    for (int d = 0; d < totalItems; d++) {
+      if (coincidencias[d] == max && filtro.test(d))
+        resultado.add(d);
+    }
+    resultado.sort((a, b) -> {
+      int cmp = Float.compare(puntaje[b], puntaje[a]);
+      return cmp != 0 ? cmp : Integer.compare(a, b);
+    });
+    return resultado.stream().limit(limite).mapToInt(Integer::intValue).toArray();
+  }
+
+  private Map<Integer, Float> candidatas(String termino) {
+    var out = new HashMap<Integer, Float>();
+    var exacta = idPorPalabra.get(termino);
+    if (exacta != null)
+      out.put(exacta, SIM_EXACTA);
+
+    if (termino.length() < 2) {
+      for (int id = 0; id < palabras.length; id++) {
+        if (palabras[id].startsWith(termino))
+          out.putIfAbsent(id, SIM_PREFIJO);
+      }
+      return out;
+    }
+
+    var vistas = new HashSet<Integer>();
+    for (var t : trigramas(termino)) {
+      var ids = palabrasPorTrigrama.get(t);
+      if (ids == null)
+        continue;
+      for (int id : ids) {
+        if (!vistas.add(id) || out.containsKey(id))
+          continue;
+        var palabra = palabras[id];
+        if (palabra.startsWith(termino)) {
+          out.put(id, SIM_PREFIJO);
+        } else if (toleraTipeo(termino)) {
+          int maxDist = termino.length() >= 8 ? 2 : 1;
+          if (Math.abs(palabra.length() - termino.length()) <= maxDist
+              && distancia(termino, palabra, maxDist) <= maxDist) {
+            out.put(id, SIM_TIPEO);
+          }
+        }
+      }
+    }
+    return out;
+  }
+
+  // Los números no se corrigen: "13" no debería encontrar "12".
+  private static boolean toleraTipeo(String termino) {
+    if (termino.length() < 4)
+      return false;
+    for (int i = 0; i < termino.length(); i++) {
+      if (Character.isDigit(termino.charAt(i)))
+        return false;
+    }
+    return true;
+  }
+
+  /** Distancia de Damerau-Levenshtein restringida, cortando al superar {@code max}. */
+  private static int distancia(String a, String b, int max) {
+    int n = a.length();
+    int m = b.length();
+    var prev2 = new int[m + 1];
+    var prev = new int[m + 1];
+    var cur = new int[m + 1];
+    for (int j = 0; j <= m; j++)
+      prev[j] = j;
+    for (int i = 1; i <= n; i++) {
+      cur[0] = i;
+      int minFila = cur[0];
+      for (int j = 1; j <= m; j++) {
+        int costo = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+        int v = Math.min(Math.min(prev[j] + 1, cur[j - 1] + 1), prev[j - 1] + costo);
+        if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1))
+          v = Math.min(v, prev2[j - 2] + 1);
+        cur[j] = v;
+        minFila = Math.min(minFila, v);
+      }
+      if (minFila > max)
+        return max + 1;
+      var tmp = prev2;
+      prev2 = prev;
+      prev = cur;
+      cur = tmp;
+    }
+    return prev[m];
+  }
+
+  private static void agregar(Map<String, Integer> pesos, String texto, int peso) {
+    if (texto == null)
+      return;
+    for (var palabra : tokenizar(texto)) {
+      pesos.merge(palabra, peso, Math::max);
+    }
+  }
+
+  static List<String> tokenizar(String texto) {
+    if (texto == null || texto.isBlank())
+      return List.of();
+    var out = new ArrayList<String>();
+    for (var parte : SEPARADORES.split(CatalogoFiltro.normalizar(texto))) {
+      for (var palabra : LETRA_NUMERO.split(parte)) {
+        if (!palabra.isEmpty())
+          out.add(palabra);
+      }
+    }
+    return out;
+  }
+
+  private static List<String> trigramas(String palabra) {
+    var conBordes = "$" + palabra + "$";
+    var out = new ArrayList<String>(conBordes.length() - 2);
+    for (int i = 0; i + 3 <= conBordes.length(); i++) {
+      out.add(conBordes.substring(i, i + 3));
+    }
+    return out;
+  }
+}
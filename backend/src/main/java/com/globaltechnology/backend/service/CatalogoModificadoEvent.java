@@ -0,0 +1,28 @@
+package com.globaltechnology.backend.service;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+public record CatalogoModificadoEvent(Set<Long> modeloIds) {
+
+  public static CatalogoModificadoEvent completo() {
+    return new CatalogoModificadoEvent(null);
+  }
+
+  public static CatalogoModificadoEvent de(Long... modeloIds) {
+    return de(Arrays.asList(modeloIds));
+  }
+
+  public static CatalogoModificadoEvent de(Collection<Long> modeloIds) {
+    return new CatalogoModificadoEvent(modeloIds.stream()
+        .filter(Objects::nonNull)
+        .collect(Collectors.toUnmodifiableSet()));
+  }
+
+  public boolean esCompleto() {
+    return modeloIds == null;
+  }
+}
@@ -0,0 +1,182 @@
+package com.globaltechnology.backend.service;
+
+import com.globaltechnology.backend.web.dto.CatalogoItemDTO;
+import com.globaltechnology.backend.web.dto.TipoCatalogoItem;
+
+import java.util.*;
+
+/**
+ * Índices ordenados por precio, batería y fecha de ingreso sobre los items de
+ * una {@link CatalogoSnapshot.Vista}. Un rango se resuelve con dos búsquedas
+ * binarias. Cuando se reconstruyen algunos modelos el índice se parchea
+ * (se quitan sus entradas y se intercalan las nuevas) en lugar de reordenarse
+ * completo.
+ *
+ * <p>
+ * Las entradas guardan la clave del item y no su posición, que cambia con
+ * cada vista; la posición se resuelve al consultar.
+ */
+final class CatalogoRangos {
+  enum Campo {
+    PRECIO, BATERIA, CREADO
+  }
+
+  private static final TipoCatalogoItem[] TIPOS = TipoCatalogoItem.values();
+  private static final Campo[] CAMPOS = Campo.values();
+
+  private final Indice[] indices;
+
+  private CatalogoRangos(Indice[] indices) {
+    this.indices = indices;
+  }
+
+  static CatalogoRangos de(CatalogoColumnas items) {
+    var indices = new Indice[CAMPOS.length];
+    for (var campo : CAMPOS) {
+      var entradas = new Indice(items.tamanio());
+      for (int i = 0; i < items.tamanio(); i++) {
+        entradas.agregar(valor(campo, items, i), items.tipo(i), items.itemId(i), items.modeloId(i));
+      }
+      indices[campo.ordinal()] = entradas.ordenado();
+    }
+    return new CatalogoRangos(indices);
+  }
+
+  CatalogoRangos parchear(Set<Long> modeloIds, List<CatalogoItemDTO> nuevos) {
+    var out = new Indice[CAMPOS.length];
+    for (var campo : CAMPOS) {
+      var entradas = new Indice(nuevos.size());
+      for (var item : nuevos) {
+        entradas.agregar(valor(campo, item), item.tipo(), item.itemId(), item.modeloId());
+      }
+      out[campo.ordinal()] = indices[campo.ordinal()].sin(modeloIds).intercalar(entradas.ordenado());
+    }
+    return new CatalogoRangos(out);
+  }
+
+  /** Posiciones en {@code items} de los que tienen el campo entre {@code desde} y {@code hasta}, inclusive. */
+  BitSet rango(Campo campo, long desde, long hasta, CatalogoColumnas items) {
+    var indice = indices[campo.ordinal()];
+    var out = new BitSet(items.tamanio());
+    if (desde > hasta)
+      return out;
+    int hi = indice.primero(hasta, false);
+    for (int k = indice.primero(desde, true); k < hi; k++) {
+      int i = items.posicion(TIPOS[indice.tipos[k]], indice.itemIds[k]);
+      if (i != CatalogoColumnas.NULO)
+        out.set(i);
+    }
+    return out;
+  }
+
+  private static long valor(Campo campo, CatalogoColumnas items, int i) {
+    return switch (campo) {
+      case PRECIO -> items.precioCentavos(i);
+      case BATERIA -> items.bateria(i) == CatalogoColumnas.NULO ? CatalogoColumnas.SIN_VALOR : items.bateria(i);
+      case CREADO -> items.creadoMicros(i);
+    };
+  }
+
+  private static long valor(Campo campo, CatalogoItemDTO item) {
+    return switch (campo) {
+      case PRECIO -> CatalogoColumnas.aCentavos(item.precio());
+      case BATERIA -> item.bateriaCondicionPct() == null ? CatalogoColumnas.SIN_VALOR : item.bateriaCondicionPct();
+      case CREADO -> CatalogoColumnas.aMicros(item.createdAt());
+    };
+  }
+
+  /** Entradas ordenadas por valor, tipo e id de item. */
+  private static final class Indice {
+    private final long[] valores;
+    private final byte[] tipos;
+    private final long[] itemIds;
+    private final long[] modeloIds;
+    private int tamanio;
+
+    Indice(int capacidad) {
+      valores = new long[capacidad];
+      tipos = new byte[capacidad];
+      itemIds = new long[capacidad];
+      modeloIds = new long[capacidad];
+    }
+
+    void agregar(long valor, TipoCatalogoItem tipo, long itemId, long modeloId) {
+      if (valor == CatalogoColumnas.SIN_VALOR)
+        return;
+      valores[tamanio] = valor;
+      tipos[tamanio] = (byte) tipo.ordinal();
+      itemIds[tamanio] = itemId;
+      modeloIds[tamanio++] = modeloId;
+    }
+
+    Indice ordenado() {
+      var orden = new Integer[tamanio];
+      for (int k = 0; k < tamanio; k++) {
+        orden[k] = k;
+      }
+      Arrays.sort(orden, this::comparar);
+      var out = new Indice(tamanio);
+      for (int k : orden) {
+        out.copiar(this, k);
+      }
+      return out;
+    }
+
+    Indice sin(Set<Long> modelos) {
+      var out = new Indice(tamanio);
+      for (int k = 0; k < tamanio; k++) {
+        if (!modelos.contains(modeloIds[k]))
+          out.copiar(this, k);
+      }
+      return out;
+    }
+
+    Indice intercalar(Indice otro) {
+      var out = new Indice(tamanio + otro.tamanio);
+      int a = 0;
+      int b = 0;
+      while (a < tamanio || b < otro.tamanio) {
+        if (b == otro.tamanio || (a < tamanio && comparar(this, a, otro, b) <= 0)) {
+          out.copiar(this, a++);
+        } else {
+          out.copiar(otro, b++);
+        }
+      }
+      return out;
+    }
+
+    /** Primera entrada con valor mayor (o igual, si {@code incluido}) que {@code valor}. */
+    int primero(long valor, boolean incluido) {
+      int lo = 0;
+      int hi = tamanio;
+      while (lo < hi) {
+        int mid = (lo + hi) >>> 1;
+        if (incluido ? valores[mid] < valor : valores[mid] <= valor) {
+          lo = mid + 1;
+        } else {
+          hi = mid;
+        }
+      }
+      return lo;
+    }
+
+    private void copiar(Indice desde, int k) {
+      valores[tamanio] = desde.valores[k];
+      tipos[tamanio] = desde.tipos[k];
+      itemIds[tamanio] = desde.itemIds[k];
+      modeloIds[tamanio++] = desde.modeloIds[k];
+    }
+
+    private int comparar(int a, int b) {
+      return comparar(this, a, this, b);
+    }
+
+    private static int comparar(Indice x, int a, Indice y, int b) {
+      int cmp = Long.compare(x.valores[a], y.valores[b]);
+      if (cmp != 0)
+        return cmp;
+      cmp = Byte.compare(x.tipos[a], y.tipos[b]);
+      return cmp != 0 ? cmp : Long.compare(x.itemIds[a], y.itemIds[b]);
+    }
+  }
+}
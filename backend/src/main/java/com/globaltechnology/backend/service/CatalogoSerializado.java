@@ -0,0 +1,75 @@
+package com.globaltechnology.backend.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.globaltechnology.backend.web.dto.TipoCatalogoItem;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * JSON ya serializado (y comprimido) del listado público del catálogo, por
+ * tipo. Se regenera solo cuando cambia la {@link CatalogoVersion}.
+ */
+@Component
+public class CatalogoSerializado {
+
+  public record Cuerpo(long version, byte[] json, byte[] gzip) {
+  }
+
+  private static final String TODOS = "";
+
+  private final CatalogoService catalogoService;
+  private final CatalogoVersion version;
+  private final ObjectMapper mapper;
+
+  private final Map<String, Cuerpo> cache = new ConcurrentHashMap<>();
+
+  public CatalogoSerializado(CatalogoService catalogoService, CatalogoVersion version, ObjectMapper mapper) {
+    this.catalogoService = catalogoService;
+    this.version = version;
+    this.mapper = mapper;
+  }
+
+  public Cuerpo listado(TipoCatalogoItem tipo) {
+    // La versión se lee antes que el snapshot: lo que se serialice es al menos
+    // tan nuevo como ella.
+    long actual = version.actual();
+    var clave = tipo == null ? TODOS : tipo.name();
+    return cache.compute(clave, (k, previo) -> previo != null && previo.version() >= actual
+        ? previo
+        : generar(actual, tipo));
+  }
+
+  private Cuerpo generar(long version, TipoCatalogoItem tipo) {
+    byte[] json;
+    try {
+      json = mapper.writeValueAsBytes(catalogoService.listarCatalogo(tipo));
+    } catch (JsonProcessingException e) {
+      throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Error serializando el catálogo");
+    }
+    return new Cuerpo(version, json, gzip(json));
+  }
+
+  private static byte[] gzip(byte[] datos) {
+    var out = new ByteArrayOutputStream(Math.max(64, datos.length / 4));
+    try (var gz = new GZIPOutputStream(out) {
+      {
+        def.setLevel(Deflater.BEST_COMPRESSION);
+      }
+    }) {
+      gz.write(datos);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return out.toByteArray();
+  }
+}
@@ -0,0 +1,139 @@
+package com.globaltechnology.backend.service;
+
+import com.globaltechnology.backend.web.dto.CatalogoFacetasDTO;
+import com.globaltechnology.backend.web.dto.CatalogoItemClave;
+import com.globaltechnology.backend.web.dto.CatalogoItemDTO;
+import com.globaltechnology.backend.web.dto.CatalogoItemResumenDTO;
+import com.globaltechnology.backend.web.dto.CatalogoPaginaDTO;
+import com.globaltechnology.backend.web.dto.OrdenCatalogo;
+import com.globaltechnology.backend.web.dto.TipoCatalogoItem;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Service
+public class CatalogoService {
+  private static final int MAX_DETALLES_POR_LOTE = 100;
+  private static final int MAX_ITEMS_POR_PAGINA = 100;
+
+  private final CatalogoSnapshot snapshot;
+
+  public CatalogoService(CatalogoSnapshot snapshot) {
+    this.snapshot = snapshot;
+  }
+
+  public List<CatalogoItemResumenDTO> listarCatalogo(TipoCatalogoItem tipo) {
+    var items = snapshot.vista().columnas();
+    var out = new ArrayList<CatalogoItemResumenDTO>(items.tamanio());
+    for (int i = 0; i < items.tamanio(); i++) {
+      if (tipo == null || items.tipo(i) == tipo)
+        out.add(items.resumen(i));
+    }
+    return out;
+  }
+
+  public CatalogoPaginaDTO buscarPagina(CatalogoFiltro filtro, OrdenCatalogo orden, String cursor, int limite) {
+    if (limite <= 0 || limite > MAX_ITEMS_POR_PAGINA) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+          "limite debe estar entre 1 y " + MAX_ITEMS_POR_PAGINA);
+    }
+    var ordenEfectivo = orden != null ? orden : OrdenCatalogo.NOMBRE;
+    var vista = snapshot.vista();
+    var items = vista.columnas();
+    var posiciones = vista.ordenadosPor(ordenEfectivo);
+
+    int desde = 0;
+    if (cursor != null && !cursor.isBlank()) {
+      desde = primeroMayorQue(items, posiciones, CatalogoClaveOrden.deCursor(cursor), ordenEfectivo);
+    }
+
+    var acepta = filtro.sobre(items);
+    var candidatos = filtro.candidatos(items, vista.rangos());
+    // Por nombre la posición coincide con el orden: se salta directo de un
+    // candidato al siguiente.
+    boolean saltar = candidatos != null && ordenEfectivo == OrdenCatalogo.NOMBRE;
+
+    var pagina = new ArrayList<CatalogoItemResumenDTO>(limite);
+    int ultimo = -1;
+    boolean hayMas = false;
+    for (int k = saltar ? candidatos.nextSetBit(desde) : desde; k >= 0 && k < posiciones.length;
+        k = saltar ? candidatos.nextSetBit(k + 1) : k + 1) {
+      int i = posiciones[k];
+      if ((candidatos != null && !candidatos.get(i)) || !acepta.test(i))
+        continue;
+      if (pagina.size() == limite) {
+        hayMas = true;
+        break;
+      }
+      pagina.add(items.resumen(i));
+      ultimo = i;
+    }
+
+    String siguiente = hayMas
+        ? CatalogoClaveOrden.de(items, ultimo).aCursor()
+        : null;
+    return new CatalogoPaginaDTO(pagina, siguiente);
+  }
+
+  private static int primeroMayorQue(CatalogoColumnas items, int[] posiciones, CatalogoClaveOrden clave,
+      OrdenCatalogo orden) {
+    var cmp = CatalogoClaveOrden.comparador(orden);
+    int lo = 0;
+    int hi = posiciones.length;
+    while (lo < hi) {
+      int mid = (lo + hi) >>> 1;
+      if (cmp.compare(CatalogoClaveOrden.de(items, posiciones[mid]), clave) <= 0) {
+        lo = mid + 1;
+      } else {
+        hi = mid;
+      }
+    }
+    return lo;
+  }
+
+  public List<CatalogoItemResumenDTO> buscarTexto(String q, TipoCatalogoItem tipo, int limite) {
+    if (limite <= 0 || limite > MAX_ITEMS_POR_PAGINA) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+          "limite debe estar entre 1 y " + MAX_ITEMS_POR_PAGINA);
+    }
+    if (q == null || q.isBlank())
+      return List.of();
+
+    var vista = snapshot.vista();
+    var items = vista.columnas();
+    var posiciones = vista.indiceBusqueda()
+        .buscar(q, i -> tipo == null || items.tipo(i) == tipo, limite);
+
+    var out = new ArrayList<CatalogoItemResumenDTO>(posiciones.length);
+    for (int i : posiciones) {
+      out.add(items.resumen(i));
+    }
+    return out;
+  }
+
+  public CatalogoFacetasDTO contarFacetas(CatalogoFacetasFiltro filtro) {
+    return snapshot.vista().facetas().contar(filtro);
+  }
+
+  public CatalogoItemDTO obtenerDetalleCatalogo(Long itemId, TipoCatalogoItem tipo) {
+    return snapshot.buscar(List.of(new CatalogoItemClave(tipo, itemId))).stream()
+        .findFirst()
+        .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Item de catálogo no encontrado"));
+  }
+
+  public List<CatalogoItemDTO> obtenerDetallesCatalogo(List<CatalogoItemClave> claves) {
+    if (claves == null || claves.isEmpty())
+      return List.of();
+    if (claves.size() > MAX_DETALLES_POR_LOTE) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+          "Se pueden pedir como máximo " + MAX_DETALLES_POR_LOTE + " items por lote");
+    }
+    if (claves.stream().anyMatch(c -> c == null || c.tipo() == null || c.itemId() == null)) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Clave de item inválida");
+    }
+    return snapshot.buscar(claves);
+  }
+}
@@ -0,0 +1,226 @@
+package com.globaltechnology.backend.service;
+
+import com.globaltechnology.backend.repository.UnidadRepository;
+import com.globaltechnology.backend.web.dto.CatalogoItemClave;
+import com.globaltechnology.backend.web.dto.CatalogoItemDTO;
+import com.globaltechnology.backend.web.dto.OrdenCatalogo;
+import com.globaltechnology.backend.web.dto.TipoCatalogoItem;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+/**
+ * Copia en memoria del catálogo público. Se arma completa la primera vez y
+ * después solo se reconstruyen los modelos invalidados por
+ * {@link CatalogoModificadoEvent}.
+ */
+@Slf4j
+@Component
+public class CatalogoSnapshot {
+
+  private final ModeloService modeloService;
+  private final UnidadRepository unidadRepo;
+
+  // ReentrantLock y no synchronized: quien espera el armado puede ser un
+  // hilo virtual y no tiene que quedar clavado a su carrier.
+  private final ReentrantLock lock = new ReentrantLock();
+  private final AtomicBoolean rearmando = new AtomicBoolean();
+  private final Set<Long> modelosSucios = ConcurrentHashMap.newKeySet();
+  private volatile boolean completoSucio = true;
+  private volatile Vista vista = crearVista(List.of());
+
+  public CatalogoSnapshot(ModeloService modeloService, UnidadRepository unidadRepo) {
+    this.modeloService = modeloService;
+    this.unidadRepo = unidadRepo;
+  }
+
+  public record Vista(
+      CatalogoColumnas columnas,
+      Map<OrdenCatalogo, int[]> ordenes,
+      Map<Class<?>, Object> derivados) {
+
+    /** Posiciones de los items en el orden pedido; por nombre es el orden propio. */
+    public int[] ordenadosPor(OrdenCatalogo orden) {
+      return ordenes.computeIfAbsent(orden, o -> o == OrdenCatalogo.NOMBRE
+          ? IntStream.range(0, columnas.tamanio()).toArray()
+          : CatalogoClaveOrden.ordenar(columnas, o));
+    }
+
+    CatalogoIndiceBusqueda indiceBusqueda() {
+      return derivado(CatalogoIndiceBusqueda.class, c -> CatalogoIndiceBusqueda.de(c.items()));
+    }
+
+    CatalogoFacetas facetas() {
+      return derivado(CatalogoFacetas.class, c -> CatalogoFacetas.de(c.items()));
+    }
+
+    CatalogoRangos rangos() {
+      return derivado(CatalogoRangos.class, CatalogoRangos::de);
+    }
+
+    // Estructuras que se arman a partir de los items la primera vez que se
+    // piden y viven lo mismo que esta vista.
+    private <T> T derivado(Class<T> tipo, Function<CatalogoColumnas, T> armar) {
+      return tipo.cast(derivados.computeIfAbsent(tipo, t -> armar.apply(columnas)));
+    }
+  }
+
+  public Vista vista() {
+    if (!completoSucio && modelosSucios.isEmpty())
+      return vista;
+
+    lock.lock();
+    try {
+      // Lo sucio se limpia antes de leer para no perder lo que se invalide
+      // mientras se arma; si la lectura falla se vuelve a marcar.
+      if (completoSucio) {
+        completoSucio = false;
+        var ids = new HashSet<Long>(modelosSucios);
+        modelosSucios.removeAll(ids);
+        List<CatalogoItemDTO> items;
+        try {
+          items = modeloService.construirCatalogo(null);
+        } catch (RuntimeException e) {
+          completoSucio = true;
+          throw e;
+        }
+        vista = crearVista(items);
+        log.info("Catálogo armado completo: {} items", items.size());
+      } else if (!modelosSucios.isEmpty()) {
+        var ids = new HashSet<Long>(modelosSucios);
+        modelosSucios.removeAll(ids);
+        var anterior = vista;
+        List<CatalogoItemDTO> nuevos;
+        try {
+          nuevos = modeloService.construirCatalogo(ids);
+        } catch (RuntimeException e) {
+          modelosSucios.addAll(ids);
+          throw e;
+        }
+        vista = crearVista(parchear(anterior.columnas().items(), ids, nuevos));
+        // Los rangos ya armados se parchean en lugar de reordenarse completos.
+        if (anterior.derivados().get(CatalogoRangos.class) instanceof CatalogoRangos rangos) {
+          vista.derivados().put(CatalogoRangos.class, rangos.parchear(ids, nuevos));
+        }
+        log.debug("Catálogo parcheado para modelos {}", ids);
+      }
+      return vista;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Items por clave, en el orden pedido. Si la copia hay que armarla completa
+   * (al arrancar o después de una invalidación total), el pedido no la
+   * espera: se arman solo los modelos de las claves y el armado completo se
+   * lanza aparte, así los pedidos siguientes ya salen de la copia.
+   */
+  public List<CatalogoItemDTO> buscar(List<CatalogoItemClave> claves) {
+    if (completoSucio) {
+      rearmarAparte();
+      var porClave = resolverSinSnapshot(claves);
+      return claves.stream()
+          .map(porClave::get)
+          .filter(Objects::nonNull)
+          .toList();
+    }
+    var columnas = vista().columnas();
+    var out = new ArrayList<CatalogoItemDTO>(claves.size());
+    for (var clave : claves) {
+      int i = columnas.posicion(clave);
+      if (i != CatalogoColumnas.NULO)
+        out.add(columnas.item(i));
+    }
+    return out;
+  }
+
+  public void invalidarModelos(Collection<Long> modeloIds) {
+    modelosSucios.addAll(modeloIds);
+  }
+
+  public void invalidarTodo() {
+    completoSucio = true;
+  }
+
+  @Order(Ordered.HIGHEST_PRECEDENCE)
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onCatalogoModificado(CatalogoModificadoEvent event) {
+    if (event.esCompleto()) {
+      invalidarTodo();
+    } else {
+      invalidarModelos(event.modeloIds());
+    }
+  }
+
+  private void rearmarAparte() {
+    if (!rearmando.compareAndSet(false, true))
+      return;
+    Thread.ofVirtual().name("catalogo-snapshot").start(() -> {
+      try {
+        vista();
+      } catch (RuntimeException e) {
+        log.warn("No se pudo armar el catálogo completo", e);
+      } finally {
+        rearmando.set(false);
+      }
+    });
+  }
+
+  private Map<CatalogoItemClave, CatalogoItemDTO> resolverSinSnapshot(List<CatalogoItemClave> claves) {
+    var modeloIds = new HashSet<Long>();
+    var unidadIds = new HashSet<Long>();
+    for (var clave : claves) {
+      if (clave.tipo() == TipoCatalogoItem.TRACKED_USADO_UNIDAD) {
+        unidadIds.add(clave.itemId());
+      } else {
+        modeloIds.add(clave.itemId());
+      }
+    }
+    if (!unidadIds.isEmpty()) {
+      modeloIds.addAll(unidadRepo.findModeloIdsByUnidadIdIn(unidadIds));
+    }
+    if (modeloIds.isEmpty())
+      return Map.of();
+    var porClave = new HashMap<CatalogoItemClave, CatalogoItemDTO>();
+    for (var item : modeloService.construirCatalogo(modeloIds)) {
+      porClave.put(CatalogoItemClave.de(item), item);
+    }
+    return porClave;
+  }
+
+  private static List<CatalogoItemDTO> parchear(List<CatalogoItemDTO> actuales, Set<Long> modeloIds,
+      List<CatalogoItemDTO> nuevos) {
+    var nuevosOrdenados = new ArrayList<>(nuevos);
+    nuevosOrdenados.sort(CatalogoAgregador.ORDEN);
+
+    var out = new ArrayList<CatalogoItemDTO>(actuales.size() + nuevosOrdenados.size());
+    int j = 0;
+    for (var item : actuales) {
+      if (modeloIds.contains(item.modeloId()))
+        continue;
+      while (j < nuevosOrdenados.size()
+          && CatalogoAgregador.ORDEN.compare(nuevosOrdenados.get(j), item) < 0) {
+        out.add(nuevosOrdenados.get(j++));
+      }
+      out.add(item);
+    }
+    while (j < nuevosOrdenados.size()) {
+      out.add(nuevosOrdenados.get(j++));
+    }
+    return out;
+  }
+
+  private static Vista crearVista(List<CatalogoItemDTO> items) {
+    return new Vista(CatalogoColumnas.de(items), new ConcurrentHashMap<>(), new ConcurrentHashMap<>());
+  }
+}
@@ -0,0 +1,79 @@
+package com.globaltechnology.backend.service;
+
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Versión de los datos del catálogo público. Arranca en el instante de inicio
+ * para que un ETag emitido antes de un reinicio no vuelva a coincidir, y se
+ * incrementa después de que las cachés del catálogo ya fueron invalidadas.
+ */
+@Component
+public class CatalogoVersion {
+
+  private final AtomicLong version = new AtomicLong(System.currentTimeMillis());
+  private volatile long ultimaModificacion = System.currentTimeMillis();
+
+  public long actual() {
+    return version.get();
+  }
+
+  public String etag() {
+    return etag(version.get(), "");
+  }
+
+  public long ultimaModificacion() {
+    return ultimaModificacion;
+  }
+
+  public boolean noModificado(WebRequest request) {
+    return noModificado(request, "");
+  }
+
+  /**
+   * Para respuestas que se mandan comprimidas o no según Accept-Encoding: son
+   * cuerpos distintos, así que cada codificación lleva su propio ETag fuerte y
+   * tanto el 200 como el 304 avisan que la respuesta varía con ese header.
+   */
+  public boolean noModificado(WebRequest request, boolean gzip) {
+    if (request instanceof ServletWebRequest swr && swr.getResponse() != null) {
+      swr.getResponse().setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+    }
+    return noModificado(request, gzip ? "-gz" : "");
+  }
+
+  private boolean noModificado(WebRequest request, String sufijo) {
+    if (request instanceof ServletWebRequest swr && swr.getResponse() != null) {
+      swr.getResponse().setHeader(HttpHeaders.CACHE_CONTROL, "no-cache");
+    }
+    return request.checkNotModified(etag(version.get(), sufijo), ultimaModificacion);
+  }
+
+  private static String etag(long version, String sufijo) {
+    return "\"" + version + sufijo + "\"";
+  }
+
+  @Order(Ordered.LOWEST_PRECEDENCE)
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onCatalogoModificado(CatalogoModificadoEvent event) {
+    incrementar();
+  }
+
+  @Order(Ordered.LOWEST_PRECEDENCE)
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onDestacadosModificados(DestacadosModificadosEvent event) {
+    incrementar();
+  }
+
+  private void incrementar() {
+    ultimaModificacion = System.currentTimeMillis();
+    version.incrementAndGet();
+  }
+}
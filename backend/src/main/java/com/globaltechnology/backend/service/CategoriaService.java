@@ -4,6 +4,7 @@ import com.globaltechnology.backend.domain.Categoria;
 import com.globaltechnology.backend.repository.CategoriaRepository;
 import com.globaltechnology.backend.web.dto.CategoriaCreateDTO;
 import com.globaltechnology.backend.web.dto.CategoriaDTO;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.web.server.ResponseStatusException;
@@ -12,9 +13,11 @@ import java.util.List;
 @Service
 public class CategoriaService {
   private final CategoriaRepository repo;
+  private final ApplicationEventPublisher events;
 
-  public CategoriaService(CategoriaRepository repo) {
+  public CategoriaService(CategoriaRepository repo, ApplicationEventPublisher events) {
     this.repo = repo;
+    this.events = events;
   }
 
   private static CategoriaDTO toDTO(Categoria c) {
@@ -42,7 +45,9 @@ public class CategoriaService {
     var c = repo.findById(id)
         .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Categoría no encontrada"));
     c.setNombre(dto.nombre().trim());
-    return toDTO(repo.save(c));
+    c = repo.save(c);
+    events.publishEvent(CatalogoModificadoEvent.completo());
+    return toDTO(c);
   }
 
   public void delete(Long id) {
@@ -4,6 +4,7 @@ import com.globaltechnology.backend.domain.Color;
 import com.globaltechnology.backend.repository.ColorRepository;
 import com.globaltechnology.backend.web.dto.ColorCreateDTO;
 import com.globaltechnology.backend.web.dto.ColorDTO;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.web.server.ResponseStatusException;
@@ -13,9 +14,11 @@ import java.util.List;
 @Service
 public class ColorService {
   private final ColorRepository repo;
+  private final ApplicationEventPublisher events;
 
-  public ColorService(ColorRepository repo) {
+  public ColorService(ColorRepository repo, ApplicationEventPublisher events) {
     this.repo = repo;
+    this.events = events;
   }
 
   private static ColorDTO toDTO(Color c) {
@@ -46,7 +49,9 @@ public class ColorService {
     var c = repo.findById(id)
         .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Color no encontrado"));
     c.setNombre(dto.nombre().trim());
-    return toDTO(repo.save(c));
+    c = repo.save(c);
+    events.publishEvent(CatalogoModificadoEvent.completo());
+    return toDTO(c);
   }
 
   public void delete(Long id) {
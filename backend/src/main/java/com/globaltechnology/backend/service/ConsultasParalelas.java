@@ -0,0 +1,72 @@
+package com.globaltechnology.backend.service;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.*;
+import java.util.function.Supplier;
+
+/**
+ * Lanza consultas independientes en hilos virtuales, cada una en su propia
+ * transacción de solo lectura (y por lo tanto con su propia conexión).
+ *
+ * <p>
+ * Solo se paraleliza cuando quien pide no está dentro de una transacción: si
+ * lo está, ya retiene una conexión y esperar a otra consulta que necesita la
+ * suya puede agotar el pool (cada pedido con su conexión esperando a hilos
+ * que esperan una conexión). En ese caso la consulta corre en el hilo que la
+ * pide, dentro de la misma transacción. Lo mismo cuando ya hay demasiadas
+ * consultas en vuelo: la cantidad está acotada por debajo del pool.
+ */
+@Component
+public class ConsultasParalelas {
+
+  private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+  private final TransactionTemplate lectura;
+  private final Semaphore permisos;
+
+  public ConsultasParalelas(PlatformTransactionManager txManager,
+      @Value("${app.consultas.paralelas.max:6}") int max) {
+    this.lectura = new TransactionTemplate(txManager);
+    this.lectura.setReadOnly(true);
+    this.permisos = new Semaphore(max);
+  }
+
+  public <T> CompletableFuture<T> lanzar(Supplier<T> consulta) {
+    if (TransactionSynchronizationManager.isActualTransactionActive() || !permisos.tryAcquire())
+      return CompletableFuture.completedFuture(consulta.get());
+    try {
+      return CompletableFuture.supplyAsync(() -> {
+        try {
+          return lectura.execute(status -> consulta.get());
+        } finally {
+          permisos.release();
+        }
+      }, executor);
+    } catch (RejectedExecutionException e) {
+      permisos.release();
+      throw e;
+    }
+  }
+
+  public static <T> T esperar(CompletableFuture<T> futuro) {
+    try {
+      return futuro.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException re)
+        throw re;
+      if (e.getCause() instanceof Error err)
+        throw err;
+      throw e;
+    }
+  }
+
+  @PreDestroy
+  void cerrar() {
+    executor.shutdown();
+  }
+}
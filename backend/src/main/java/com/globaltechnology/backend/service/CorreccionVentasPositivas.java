@@ -0,0 +1,75 @@
+package com.globaltechnology.backend.service;
+
+import com.globaltechnology.backend.domain.MigracionDatos;
+import com.globaltechnology.backend.repository.MigracionDatosRepository;
+import com.globaltechnology.backend.repository.MovimientoInventarioRepository;
+import com.globaltechnology.backend.repository.StockCorteRepository;
+import com.globaltechnology.backend.repository.VarianteStockRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+
+/**
+ * Hasta que las ventas empezaron a descontar stock, VentaService guardaba sus
+ * movimientos VENTA con cantidad positiva, así que el libro los sumaba. Esta
+ * corrección corre una sola vez por base y queda registrada en
+ * {@link MigracionDatos}: el stock y los cortes ya armados pierden dos veces
+ * cada venta (la que sumaron y la que debieron restar) y después se invierte
+ * el signo en el libro.
+ *
+ * <p>
+ * Corre antes de que el servidor web acepte pedidos, así ninguna venta
+ * descuenta contra el stock inflado, y antes de
+ * {@link StockService#completarFaltantes}, que cuenta desde el libro.
+ */
+@Slf4j
+@Component
+public class CorreccionVentasPositivas implements SmartInitializingSingleton {
+  static final String NOMBRE = "ventas-cantidad-positiva";
+
+  private final MigracionDatosRepository migraciones;
+  private final MovimientoInventarioRepository movRepo;
+  private final VarianteStockRepository stockRepo;
+  private final StockCorteRepository corteRepo;
+  private final TransactionTemplate tx;
+
+  public CorreccionVentasPositivas(MigracionDatosRepository migraciones,
+      MovimientoInventarioRepository movRepo,
+      VarianteStockRepository stockRepo,
+      StockCorteRepository corteRepo,
+      PlatformTransactionManager txManager) {
+    this.migraciones = migraciones;
+    this.movRepo = movRepo;
+    this.stockRepo = stockRepo;
+    this.corteRepo = corteRepo;
+    this.tx = new TransactionTemplate(txManager);
+  }
+
+  @Override
+  public void afterSingletonsInstantiated() {
+    if (migraciones.existsById(NOMBRE))
+      return;
+    try {
+      tx.executeWithoutResult(status -> aplicar());
+    } catch (DataIntegrityViolationException e) {
+      // Otra instancia la registró primero; su transacción ya la aplicó.
+      log.info("Corrección {} aplicada por otra instancia", NOMBRE);
+    }
+  }
+
+  // El registro va primero: si dos instancias arrancan juntas, la segunda
+  // choca con la clave y no corrige nada.
+  private void aplicar() {
+    migraciones.saveAndFlush(new MigracionDatos(NOMBRE, Instant.now()));
+    int cortes = corteRepo.descontarVentasPositivas();
+    int variantes = stockRepo.descontarVentasPositivas();
+    int movimientos = movRepo.invertirVentasPositivas();
+    log.info("Corrección {}: {} movimientos, {} variantes, {} cortes",
+        NOMBRE, movimientos, variantes, cortes);
+  }
+}
@@ -0,0 +1,121 @@
+package com.globaltechnology.backend.service;
+
+import com.globaltechnology.backend.domain.StockCorte;
+import com.globaltechnology.backend.repository.MovimientoInventarioRepository;
+import com.globaltechnology.backend.repository.MovimientoInventarioRepository.VarianteCantidadRow;
+import com.globaltechnology.backend.repository.StockCorteRepository;
+import com.globaltechnology.backend.repository.UnidadRepository;
+import com.globaltechnology.backend.repository.VarianteRepository;
+import com.globaltechnology.backend.web.dto.InventarioHistoricoDTO;
+import com.globaltechnology.backend.web.dto.VarianteStockHistoricoDTO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * Cortes diarios del libro de movimientos ({@link StockCorte}) y el stock a
+ * una fecha a partir de ellos: el saldo del último corte más los movimientos
+ * posteriores, sin recorrer el libro desde el principio.
+ *
+ * <p>
+ * El corte de cada día se toma a medianoche pero se escribe un rato después,
+ * para que ya estén confirmados los movimientos con fecha anterior.
+ */
+@Slf4j
+@Service
+public class CorteStockService {
+  private static final Comparator<VarianteStockHistoricoDTO> ORDEN = Comparator
+      .comparing(VarianteStockHistoricoDTO::modeloNombre, String.CASE_INSENSITIVE_ORDER)
+      .thenComparing(r -> Optional.ofNullable(r.colorNombre()).orElse(""), String.CASE_INSENSITIVE_ORDER)
+      .thenComparing(r -> Optional.ofNullable(r.capacidadEtiqueta()).orElse(""), String.CASE_INSENSITIVE_ORDER)
+      .thenComparing(VarianteStockHistoricoDTO::varianteId);
+
+  private final StockCorteRepository repo;
+  private final MovimientoInventarioRepository movRepo;
+  private final UnidadRepository unidadRepo;
+  private final VarianteRepository varianteRepo;
+
+  public CorteStockService(StockCorteRepository repo,
+      MovimientoInventarioRepository movRepo,
+      UnidadRepository unidadRepo,
+      VarianteRepository varianteRepo) {
+    this.repo = repo;
+    this.movRepo = movRepo;
+    this.unidadRepo = unidadRepo;
+    this.varianteRepo = varianteRepo;
+  }
+
+  @Scheduled(cron = "${app.stock.corte-cron:0 15 0 * * *}", zone = "America/Argentina/Buenos_Aires")
+  @Transactional
+  public void cortarHoy() {
+    cortar(LocalDate.now(RangoFechas.ZONA).atStartOfDay(RangoFechas.ZONA).toInstant());
+  }
+
+  /**
+   * Escribe el saldo al {@code corte} de las variantes que tuvieron
+   * movimientos desde el corte anterior. Si se saltearon días (la aplicación
+   * estaba apagada) el nuevo corte los cubre a todos.
+   */
+  @Transactional
+  public void cortar(Instant corte) {
+    var anterior = repo.ultimoCorte();
+    if (anterior != null && !anterior.isBefore(corte))
+      return;
+
+    var cambios = movRepo.cantidadesPorVariante(anterior, corte);
+    if (cambios.isEmpty())
+      return;
+    var saldos = anterior == null ? new HashMap<Long, Long>() : porVariante(repo.saldosAl(anterior));
+
+    var filas = new ArrayList<StockCorte>(cambios.size());
+    for (var c : cambios) {
+      long saldo = saldos.getOrDefault(c.getVarianteId(), 0L) + c.getCantidad();
+      filas.add(StockCorte.builder().varianteId(c.getVarianteId()).fecha(corte).saldo(saldo).build());
+    }
+    repo.saveAll(filas);
+    log.info("Corte de stock al {}: {} variantes", corte, filas.size());
+  }
+
+  /**
+   * Stock de cada variante al final del día {@code dia}. Las que no trackean
+   * unidad salen del libro; las trackeadas, de las unidades ingresadas antes
+   * y no vendidas (las eliminadas ya no se pueden contar).
+   */
+  @Transactional(readOnly = true)
+  public InventarioHistoricoDTO stockAl(LocalDate dia, Long categoriaId, Long marcaId) {
+    var fecha = RangoFechas.de(null, dia).hasta();
+    var corte = repo.ultimoCorteHasta(fecha);
+
+    var saldos = corte == null ? new HashMap<Long, Long>() : porVariante(repo.saldosAl(corte));
+    for (var m : movRepo.cantidadesPorVariante(corte, fecha)) {
+      saldos.merge(m.getVarianteId(), m.getCantidad(), Long::sum);
+    }
+    var unidades = porVariante(unidadRepo.enStockPorVarianteAl(fecha));
+
+    var out = new ArrayList<VarianteStockHistoricoDTO>();
+    long total = 0;
+    for (var v : varianteRepo.findListado(categoriaId, marcaId)) {
+      long stock = (v.isTrackeaUnidad() ? unidades : saldos).getOrDefault(v.getId(), 0L);
+      if (stock == 0)
+        continue;
+      out.add(new VarianteStockHistoricoDTO(v.getId(), v.getModeloId(), v.getModeloNombre(),
+          v.getColorNombre(), v.getCapacidadEtiqueta(), v.isTrackeaUnidad(), stock));
+      total += stock;
+    }
+    out.sort(ORDEN);
+    return new InventarioHistoricoDTO(fecha, corte, total, out);
+  }
+
+  private static HashMap<Long, Long> porVariante(List<VarianteCantidadRow> filas) {
+    var out = new HashMap<Long, Long>(filas.size() * 2);
+    for (var f : filas) {
+      out.put(f.getVarianteId(), f.getCantidad());
+    }
+    return out;
+  }
+}
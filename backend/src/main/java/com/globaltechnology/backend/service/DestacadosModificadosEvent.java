@@ -0,0 +1,6 @@
+package com.globaltechnology.backend.service;
+
+import com.globaltechnology.backend.web.dto.TipoCatalogoItem;
+
+public record DestacadosModificadosEvent(TipoCatalogoItem tipo, Long itemId) {
+}
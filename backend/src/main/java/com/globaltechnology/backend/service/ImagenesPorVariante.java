@@ -0,0 +1,28 @@
+package com.globaltechnology.backend.service;
+
+import com.globaltechnology.backend.domain.ImagenSet;
+import com.globaltechnology.backend.repository.VarianteImagenRepository;
+import com.globaltechnology.backend.web.dto.VarianteImagenDTO;
+
+import java.util.*;
+
+/** Imágenes de varias variantes agrupadas por variante y set, ya ordenadas. */
+final class ImagenesPorVariante {
+
+  private ImagenesPorVariante() {
+  }
+
+  static Map<Long, Map<ImagenSet, List<VarianteImagenDTO>>> cargar(VarianteImagenRepository repo,
+      Collection<Long> varianteIds) {
+    if (varianteIds.isEmpty())
+      return Map.of();
+    var out = new HashMap<Long, Map<ImagenSet, List<VarianteImagenDTO>>>();
+    for (var r : repo.findRowsByVarianteIdIn(varianteIds)) {
+      out.computeIfAbsent(r.getVarianteId(), k -> new EnumMap<>(ImagenSet.class))
+          .computeIfAbsent(r.getSetTipo(), k -> new ArrayList<>())
+          .add(new VarianteImagenDTO(r.getId(), r.getSetTipo(), r.getUrl(), r.getAltText(), r.getOrden(),
+              r.isPrincipal()));
+    }
+    return out;
+  }
+}
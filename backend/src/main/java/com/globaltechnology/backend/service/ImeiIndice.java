@@ -0,0 +1,166 @@
+package com.globaltechnology.backend.service;
+
+import com.globaltechnology.backend.repository.UnidadRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+
+/**
+ * Índice en memoria de los IMEI para buscar por prefijo o con dígitos
+ * ilegibles ({@link #COMODIN}).
+ *
+ * <p>
+ * Es un trie implícito: las claves se guardan ordenadas y cada nodo es el
+ * rango de claves que comparte su prefijo, así que bajar un nivel es una
+ * búsqueda binaria y no hay un objeto por nodo. Se arma la primera vez que se
+ * usa y después se actualiza con {@link ImeiModificadoEvent}, copiando los
+ * arreglos: las altas y bajas de unidades son raras comparadas con las
+ * búsquedas.
+ */
+@Slf4j
+@Component
+public class ImeiIndice {
+  public static final char COMODIN = '?';
+
+  private final UnidadRepository unidadRepo;
+
+  private final Object lock = new Object();
+  private volatile Claves claves;
+
+  public ImeiIndice(UnidadRepository unidadRepo) {
+    this.unidadRepo = unidadRepo;
+  }
+
+  private record Claves(String[] imeis, long[] unidadIds) {
+  }
+
+  /** Ids de las unidades cuyo IMEI empieza con {@code patron}, en orden de IMEI. */
+  @Transactional(readOnly = true)
+  public List<Long> buscar(String patron, int limite) {
+    var c = claves();
+    var out = new ArrayList<Long>(Math.min(limite, 16));
+    recorrer(c, patron, 0, c.imeis().length, 0, limite, out);
+    return out;
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onImeiModificado(ImeiModificadoEvent event) {
+    synchronized (lock) {
+      // Si todavía no se armó, lo va a leer de la base.
+      if (claves == null)
+        return;
+      var c = claves;
+      if (event.anterior() != null)
+        c = sin(c, event.anterior());
+      if (event.actual() != null)
+        c = con(c, event.actual(), event.unidadId());
+      claves = c;
+    }
+  }
+
+  private Claves claves() {
+    var c = claves;
+    if (c != null)
+      return c;
+    synchronized (lock) {
+      if (claves == null) {
+        var filas = new ArrayList<Map.Entry<String, Long>>();
+        try (var imeis = unidadRepo.streamImeis()) {
+          imeis.forEach(r -> filas.add(Map.entry(r.getImei(), r.getId())));
+        }
+        filas.sort(Map.Entry.comparingByKey());
+        var imeis = new String[filas.size()];
+        var ids = new long[filas.size()];
+        for (int i = 0; i < imeis.length; i++) {
+          imeis[i] = filas.get(i).getKey();
+          ids[i] = filas.get(i).getValue();
+        }
+        claves = new Claves(imeis, ids);
+        log.info("Índice de IMEI armado: {} unidades", imeis.length);
+      }
+      return claves;
+    }
+  }
+
+  /**
+   * Todas las claves de {@code [lo, hi)} comparten los primeros {@code nivel}
+   * caracteres, que ya coinciden con el patrón.
+   */
+  private static void recorrer(Claves c, String patron, int lo, int hi, int nivel, int limite, List<Long> out) {
+    var imeis = c.imeis();
+    if (nivel == patron.length()) {
+      for (int i = lo; i < hi && out.size() < limite; i++) {
+        out.add(c.unidadIds()[i]);
+      }
+      return;
+    }
+    // Las claves que terminan en este nivel van primero y no pueden coincidir.
+    while (lo < hi && imeis[lo].length() == nivel) {
+      lo++;
+    }
+    char ch = patron.charAt(nivel);
+    if (ch != COMODIN) {
+      int desde = primero(imeis, lo, hi, nivel, ch);
+      int hasta = primero(imeis, desde, hi, nivel, (char) (ch + 1));
+      if (desde < hasta)
+        recorrer(c, patron, desde, hasta, nivel + 1, limite, out);
+      return;
+    }
+    while (lo < hi && out.size() < limite) {
+      char hijo = imeis[lo].charAt(nivel);
+      int hasta = primero(imeis, lo, hi, nivel, (char) (hijo + 1));
+      recorrer(c, patron, lo, hasta, nivel + 1, limite, out);
+      lo = hasta;
+    }
+  }
+
+  /** Primera clave de {@code [lo, hi)} cuyo carácter en {@code nivel} es mayor o igual a {@code ch}. */
+  private static int primero(String[] imeis, int lo, int hi, int nivel, char ch) {
+    while (lo < hi) {
+      int mid = (lo + hi) >>> 1;
+      if (imeis[mid].charAt(nivel) < ch) {
+        lo = mid + 1;
+      } else {
+        hi = mid;
+      }
+    }
+    return lo;
+  }
+
+  private static Claves con(Claves c, String imei, long unidadId) {
+    int i = Arrays.binarySearch(c.imeis(), imei);
+    if (i >= 0) {
+      var ids = c.unidadIds().clone();
+      ids[i] = unidadId;
+      return new Claves(c.imeis(), ids);
+    }
+    int pos = -i - 1;
+    int n = c.imeis().length;
+    var imeis = new String[n + 1];
+    var ids = new long[n + 1];
+    System.arraycopy(c.imeis(), 0, imeis, 0, pos);
+    System.arraycopy(c.unidadIds(), 0, ids, 0, pos);
+    imeis[pos] = imei;
+    ids[pos] = unidadId;
+    System.arraycopy(c.imeis(), pos, imeis, pos + 1, n - pos);
+    System.arraycopy(c.unidadIds(), pos, ids, pos + 1, n - pos);
+    return new Claves(imeis, ids);
+  }
+
+  private static Claves sin(Claves c, String imei) {
+    int pos = Arrays.binarySearch(c.imeis(), imei);
+    if (pos < 0)
+      return c;
+    int n = c.imeis().length;
+    var imeis = new String[n - 1];
+    var ids = new long[n - 1];
+    System.arraycopy(c.imeis(), 0, imeis, 0, pos);
+    System.arraycopy(c.unidadIds(), 0, ids, 0, pos);
+    System.arraycopy(c.imeis(), pos + 1, imeis, pos, n - pos - 1);
+    System.arraycopy(c.unidadIds(), pos + 1, ids, pos, n - pos - 1);
+    return new Claves(imeis, ids);
+  }
+}
@@ -0,0 +1,13 @@
+package com.globaltechnology.backend.service;
+
+/** Alta ({@code anterior} nulo) o baja ({@code actual} nulo) del IMEI de una unidad. */
+public record ImeiModificadoEvent(Long unidadId, String anterior, String actual) {
+
+  public static ImeiModificadoEvent alta(Long unidadId, String imei) {
+    return new ImeiModificadoEvent(unidadId, null, imei);
+  }
+
+  public static ImeiModificadoEvent baja(Long unidadId, String imei) {
+    return new ImeiModificadoEvent(unidadId, imei, null);
+  }
+}
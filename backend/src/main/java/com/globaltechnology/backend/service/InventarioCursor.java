@@ -0,0 +1,38 @@
+package com.globaltechnology.backend.service;
+
+import com.globaltechnology.backend.repository.UnidadRepository.InventarioPaginaRow;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Posición de la última unidad devuelta en el orden del inventario. Las
+ * claves de texto vienen ya en minúsculas desde la base, para comparar igual
+ * que el {@code order by}.
+ */
+record InventarioCursor(String modelo, String color, String capacidad, long unidadId) {
+
+  private static final String SEP = "\u001f";
+
+  static InventarioCursor de(InventarioPaginaRow row) {
+    return new InventarioCursor(row.getClaveModelo(), row.getClaveColor(), row.getClaveCapacidad(),
+        row.getUnidadId());
+  }
+
+  String aCursor() {
+    var raw = String.join(SEP, modelo, color, capacidad, Long.toString(unidadId));
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+  }
+
+  static InventarioCursor deCursor(String cursor) {
+    try {
+      var raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+      var partes = raw.split(SEP, -1);
+      return new InventarioCursor(partes[0], partes[1], partes[2], Long.parseLong(partes[3]));
+    } catch (RuntimeException ex) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Cursor inválido");
+    }
+  }
+}
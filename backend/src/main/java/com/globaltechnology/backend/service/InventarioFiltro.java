@@ -0,0 +1,13 @@
+package com.globaltechnology.backend.service;
+
+import com.globaltechnology.backend.domain.EstadoComercial;
+import com.globaltechnology.backend.domain.EstadoStock;
+
+public record InventarioFiltro(
+    EstadoStock estadoStock,
+    EstadoComercial estadoProducto,
+    Long modeloId,
+    Long colorId,
+    Long capacidadId,
+    String imeiPrefijo) {
+}
@@ -2,165 +2,248 @@ package com.globaltechnology.backend.service;
 
 import com.globaltechnology.backend.domain.*;
 import com.globaltechnology.backend.repository.*;
+import com.globaltechnology.backend.repository.UnidadRepository.InventarioPaginaRow;
+import com.globaltechnology.backend.repository.UnidadRepository.InventarioUnidadRow;
+import com.globaltechnology.backend.repository.VarianteRepository.VarianteListadoRow;
+import com.globaltechnology.backend.web.dto.InventarioPaginaDTO;
 import com.globaltechnology.backend.web.dto.InventarioRowDTO;
+import com.globaltechnology.backend.web.dto.InventarioValuacionDTO;
+import com.globaltechnology.backend.web.dto.ValuacionGrupoDTO;
 import com.globaltechnology.backend.web.dto.VarianteImagenDTO;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.math.BigDecimal;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
 
 @Service
 public class InventarioService {
+  private static final int MAX_UNIDADES_POR_PAGINA = 200;
+  private static final Pattern IMEI_PREFIJO = Pattern.compile("\\d{1,20}");
 
-  private final ModeloRepository modeloRepo;
   private final VarianteRepository varianteRepo;
   private final UnidadRepository unidadRepo;
-  private final MovimientoInventarioRepository movRepo;
   private final VarianteImagenRepository varianteImagenRepo;
+  private final ConsultasParalelas paralelas;
+  private final StockService stock;
+  private final Reservas reservas;
+  private final CatalogoVersion version;
 
-  public InventarioService(ModeloRepository modeloRepo,
-      VarianteRepository varianteRepo,
+  private volatile Valuacion valuacion;
+
+  private record Valuacion(long version, InventarioValuacionDTO dto) {
+  }
+
+  public InventarioService(VarianteRepository varianteRepo,
       UnidadRepository unidadRepo,
-      MovimientoInventarioRepository movRepo,
-      VarianteImagenRepository varianteImagenRepo) {
-    this.modeloRepo = modeloRepo;
+      VarianteImagenRepository varianteImagenRepo,
+      ConsultasParalelas paralelas,
+      StockService stock,
+      Reservas reservas,
+      CatalogoVersion version) {
     this.varianteRepo = varianteRepo;
     this.unidadRepo = unidadRepo;
-    this.movRepo = movRepo;
     this.varianteImagenRepo = varianteImagenRepo;
+    this.paralelas = paralelas;
+    this.stock = stock;
+    this.reservas = reservas;
+    this.version = version;
   }
 
+  /**
+   * Con un rango de fechas solo salen las unidades ingresadas en ese rango: las
+   * filas de no trackeados son stock acumulado y no tienen fecha de ingreso.
+   * Lo reservado no se lista: las unidades reservadas no salen y a los no
+   * trackeados ya se les descuenta.
+   */
   @Transactional(readOnly = true)
-  public List<InventarioRowDTO> listarInventario(Long categoriaId, Long marcaId) {
-
-    List<Modelo> modelos = (categoriaId != null && marcaId != null)
-        ? modeloRepo.findAllByCategoria_IdAndMarca_Id(categoriaId, marcaId)
-        : (categoriaId != null) ? modeloRepo.findAllByCategoria_Id(categoriaId)
-            : (marcaId != null) ? modeloRepo.findAllByMarca_Id(marcaId) : modeloRepo.findAll();
-
-    if (modelos.isEmpty())
-      return List.of();
+  public void listarInventario(Long categoriaId, Long marcaId, RangoFechas rango,
+      Consumer<InventarioRowDTO> salida) {
 
-    var modeloIds = modelos.stream().map(Modelo::getId).toList();
-
-    var variantes = varianteRepo.findAllByModelo_IdIn(modeloIds);
+    var variantes = varianteRepo.findListado(categoriaId, marcaId);
     if (variantes.isEmpty())
-      return List.of();
-
-    var varianteIds = variantes.stream().map(Variante::getId).toList();
-    var todasImgs = varianteImagenRepo.findAllByVariante_IdIn(varianteIds);
-
-    Map<Long, Map<ImagenSet, List<VarianteImagenDTO>>> imgsByVarAndSet = todasImgs.stream()
-        .collect(Collectors.groupingBy(
-            vi -> vi.getVariante().getId(),
-            Collectors.groupingBy(
-                VarianteImagen::getSetTipo,
-                Collectors.collectingAndThen(
-                    Collectors.toList(),
-                    list -> list.stream()
-                        .sorted(Comparator.comparingInt(VarianteImagen::getOrden))
-                        .map(VarianteImagenDTO::from)
-                        .toList()))));
-
-    var tracked = variantes.stream().filter(v -> v.getModelo().isTrackeaUnidad()).toList();
-    var untracked = variantes.stream().filter(v -> !v.getModelo().isTrackeaUnidad()).toList();
-
-    var out = new ArrayList<InventarioRowDTO>(variantes.size() * 2);
-
-    if (!tracked.isEmpty()) {
-      var trackedIds = tracked.stream().map(Variante::getId).toList();
-      var unidades = unidadRepo.findAllByVariante_IdIn(trackedIds);
-
-      for (var u : unidades) {
-        if (u.getEstadoStock() != EstadoStock.EN_STOCK)
-          continue;
-
-        var v = u.getVariante();
-        var m = v.getModelo();
-
-        BigDecimal precioBase = v.getPrecioBase();
-        BigDecimal override = u.getPrecioOverride();
-        BigDecimal efectivo = (override != null ? override : precioBase);
-
-        ImagenSet set = (u.getEstadoProducto() == EstadoComercial.USADO)
-            ? ImagenSet.USADO
-            : ImagenSet.SELLADO;
-
-        List<VarianteImagenDTO> imagenes = Optional
-            .ofNullable(imgsByVarAndSet.get(v.getId()))
-            .map(map -> map.getOrDefault(set, Collections.emptyList()))
-            .orElse(Collections.emptyList());
-
-        out.add(new InventarioRowDTO(
-            m.getId(), m.getNombre(),
-            v.getId(),
-            v.getColor() != null ? v.getColor().getNombre() : null,
-            v.getCapacidad() != null ? v.getCapacidad().getEtiqueta() : null,
-            u.getId(),
-            u.getImei(),
-            u.getBateriaCondicionPct(),
-            u.getEstadoProducto(),
-            u.getEstadoStock(),
-            precioBase,
-            override,
-            efectivo,
-            null,
-            true,
-            u.getCreatedAt(),
-            u.getUpdatedAt(),
-            imagenes));
-      }
+      return;
+
+    var varianteIds = variantes.stream().map(VarianteListadoRow::getId).toList();
+    // Las filas de no trackeados son stock acumulado: solo salen sin rango.
+    var untrackedIds = rango.esTodo()
+        ? variantes.stream().filter(v -> !v.isTrackeaUnidad()).map(VarianteListadoRow::getId).toList()
+        : List.<Long>of();
+
+    // Se leen antes de abrir el cursor de unidades.
+    var imgsByVarAndSet = ImagenesPorVariante.cargar(varianteImagenRepo, varianteIds);
+    var stockNoTrackeado = stock.cantidades(untrackedIds);
+    var reservadas = reservas.unidadesReservadas();
+
+    // Unidades y no trackeados llegan intercalados y ya ordenados desde la base.
+    try (var filas = unidadRepo.streamInventario(EstadoStock.EN_STOCK, categoriaId, marcaId,
+        rango.desde(), rango.hasta(), !untrackedIds.isEmpty())) {
+      filas.forEach(f -> {
+        if (f.getUnidadId() == null) {
+          long cantidad = stockNoTrackeado.getOrDefault(f.getVarianteId(), 0L);
+          if (cantidad > 0)
+            salida.accept(filaNoTrackeada(f, cantidad, imgsByVarAndSet));
+        } else if (!reservadas.contains(f.getUnidadId())) {
+          salida.accept(filaUnidad(f, imgsByVarAndSet));
+        }
+      });
     }
+  }
 
-    if (!untracked.isEmpty()) {
-      var untrackedIds = untracked.stream().map(Variante::getId).toList();
-
-      Map<Long, Long> stockMap = new HashMap<>();
-      for (var row : movRepo.stockNoTrackeadoPorVariante(untrackedIds)) {
-        Long varianteId = row.getVarianteId();
-        Integer stock = row.getStock();
-        stockMap.put(varianteId, stock == null ? 0L : stock.longValue());
-      }
-
-      for (var v : untracked) {
-        var m = v.getModelo();
-        Long stock = stockMap.getOrDefault(v.getId(), 0L);
-        if (stock <= 0)
-          continue;
-
-        List<VarianteImagenDTO> imagenes = Optional
-            .ofNullable(imgsByVarAndSet.get(v.getId()))
-            .map(map -> map.getOrDefault(ImagenSet.CATALOGO, Collections.emptyList()))
-            .orElse(Collections.emptyList());
-        out.add(new InventarioRowDTO(
-            m.getId(), m.getNombre(),
-            v.getId(),
-            v.getColor() != null ? v.getColor().getNombre() : null,
-            v.getCapacidad() != null ? v.getCapacidad().getEtiqueta() : null,
-            null,
-            null,
-            null,
-            null,
-            null,
-            v.getPrecioBase(),
-            null,
-            v.getPrecioBase(),
-            stock,
-            false,
-            v.getCreatedAt(),
-            v.getUpdatedAt(),
-            imagenes));
-      }
+  @Transactional(readOnly = true)
+  public InventarioPaginaDTO paginarUnidades(InventarioFiltro filtro, String cursor, int limite) {
+    if (limite <= 0 || limite > MAX_UNIDADES_POR_PAGINA) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+          "limite debe estar entre 1 y " + MAX_UNIDADES_POR_PAGINA);
+    }
+    var imei = filtro.imeiPrefijo() == null || filtro.imeiPrefijo().isBlank() ? null : filtro.imeiPrefijo().trim();
+    if (imei != null && !IMEI_PREFIJO.matcher(imei).matches()) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "El prefijo de IMEI debe ser numérico");
     }
+    var desde = (cursor == null || cursor.isBlank()) ? null : InventarioCursor.deCursor(cursor);
+    // Las reservadas se excluyen en la consulta para no acortar la página; la
+    // lista no puede ir vacía y ningún id es negativo.
+    Collection<Long> reservadas = reservas.unidadesReservadas();
+    if (reservadas.isEmpty())
+      reservadas = List.of(-1L);
+
+    var rows = unidadRepo.paginaInventario(
+        filtro.estadoStock() != null ? filtro.estadoStock() : EstadoStock.EN_STOCK,
+        filtro.estadoProducto(),
+        filtro.modeloId(),
+        filtro.colorId(),
+        filtro.capacidadId(),
+        imei == null ? null : imei + "%",
+        reservadas,
+        desde == null ? null : desde.modelo(),
+        desde == null ? null : desde.color(),
+        desde == null ? null : desde.capacidad(),
+        desde == null ? null : desde.unidadId(),
+        Limit.of(limite + 1));
+
+    boolean hayMas = rows.size() > limite;
+    var pagina = hayMas ? rows.subList(0, limite) : rows;
+
+    var imgsByVarAndSet = ImagenesPorVariante.cargar(varianteImagenRepo,
+        pagina.stream().map(InventarioPaginaRow::getVarianteId).distinct().toList());
+    var items = pagina.stream().map(u -> filaUnidad(u, imgsByVarAndSet)).toList();
+
+    String siguiente = hayMas ? InventarioCursor.de(pagina.get(pagina.size() - 1)).aCursor() : null;
+    return new InventarioPaginaDTO(items, siguiente);
+  }
+
+  /**
+   * Valor del stock a precio base y a precio efectivo por categoría, marca y
+   * estado. Se calcula en la base y queda guardado hasta que cambie la
+   * versión de los datos, que se incrementa con cualquier escritura de
+   * unidades, variantes, movimientos o ventas.
+   */
+  public InventarioValuacionDTO valuacion() {
+    // La versión se lee antes de consultar: si algo cambia en el medio, lo
+    // guardado queda con la versión vieja y se recalcula en el próximo pedido.
+    long v = version.actual();
+    var actual = valuacion;
+    if (actual != null && actual.version() == v)
+      return actual.dto();
+
+    var noTrackeadoFut = paralelas.lanzar(stock::valuacionNoTrackeado);
+    var unidadesFut = paralelas.lanzar(() -> unidadRepo.valuacionPorGrupo(EstadoStock.EN_STOCK));
+
+    var grupos = new ArrayList<ValuacionGrupoDTO>();
+    for (var r : ConsultasParalelas.esperar(unidadesFut)) {
+      grupos.add(new ValuacionGrupoDTO(r.getCategoriaId(), r.getCategoriaNombre(), r.getMarcaId(),
+          r.getMarcaNombre(), r.getEstadoProducto(), true, r.getUnidades(), r.getValorBase(),
+          r.getValorEfectivo()));
+    }
+    for (var r : ConsultasParalelas.esperar(noTrackeadoFut)) {
+      if (r.getUnidades() == 0)
+        continue;
+      grupos.add(new ValuacionGrupoDTO(r.getCategoriaId(), r.getCategoriaNombre(), r.getMarcaId(),
+          r.getMarcaNombre(), null, false, r.getUnidades(), r.getValor(), r.getValor()));
+    }
+    grupos.sort(Comparator
+        .comparing(ValuacionGrupoDTO::categoriaNombre, String.CASE_INSENSITIVE_ORDER)
+        .thenComparing(ValuacionGrupoDTO::marcaNombre, String.CASE_INSENSITIVE_ORDER)
+        .thenComparing(g -> g.estadoProducto() == null ? "" : g.estadoProducto().name()));
+
+    long unidades = 0;
+    var valorBase = BigDecimal.ZERO;
+    var valorEfectivo = BigDecimal.ZERO;
+    for (var g : grupos) {
+      unidades += g.unidades();
+      valorBase = valorBase.add(g.valorBase());
+      valorEfectivo = valorEfectivo.add(g.valorEfectivo());
+    }
+
+    var dto = new InventarioValuacionDTO(unidades, valorBase, valorEfectivo, List.copyOf(grupos));
+    valuacion = new Valuacion(v, dto);
+    return dto;
+  }
 
-    out.sort(Comparator
-        .comparing(InventarioRowDTO::modeloNombre, String.CASE_INSENSITIVE_ORDER)
-        .thenComparing(r -> Optional.ofNullable(r.colorNombre()).orElse(""), String.CASE_INSENSITIVE_ORDER)
-        .thenComparing(r -> Optional.ofNullable(r.capacidadEtiqueta()).orElse(""), String.CASE_INSENSITIVE_ORDER)
-        .thenComparing(r -> Optional.ofNullable(r.unidadId()).orElse(0L)));
+  private static InventarioRowDTO filaUnidad(InventarioUnidadRow u,
+      Map<Long, Map<ImagenSet, List<VarianteImagenDTO>>> imgsByVarAndSet) {
+    BigDecimal precioBase = u.getPrecioBase();
+    BigDecimal override = u.getPrecioOverride();
+    BigDecimal efectivo = (override != null ? override : precioBase);
+
+    ImagenSet set = (u.getEstadoProducto() == EstadoComercial.USADO)
+        ? ImagenSet.USADO
+        : ImagenSet.SELLADO;
+
+    List<VarianteImagenDTO> imagenes = Optional
+        .ofNullable(imgsByVarAndSet.get(u.getVarianteId()))
+        .map(map -> map.getOrDefault(set, Collections.emptyList()))
+        .orElse(Collections.emptyList());
+
+    return new InventarioRowDTO(
+        u.getModeloId(), u.getModeloNombre(),
+        u.getVarianteId(),
+        u.getColorNombre(),
+        u.getCapacidadEtiqueta(),
+        u.getUnidadId(),
+        u.getImei(),
+        u.getBateriaCondicionPct(),
+        u.getEstadoProducto(),
+        u.getEstadoStock(),
+        precioBase,
+        override,
+        efectivo,
+        null,
+        true,
+        u.getCreatedAt(),
+        u.getUpdatedAt(),
+        imagenes);
+  }
 
-    return out;
+  private static InventarioRowDTO filaNoTrackeada(InventarioUnidadRow v, long stock,
+      Map<Long, Map<ImagenSet, List<VarianteImagenDTO>>> imgsByVarAndSet) {
+    List<VarianteImagenDTO> imagenes = Optional
+        .ofNullable(imgsByVarAndSet.get(v.getVarianteId()))
+        .map(map -> map.getOrDefault(ImagenSet.CATALOGO, Collections.emptyList()))
+        .orElse(Collections.emptyList());
+
+    return new InventarioRowDTO(
+        v.getModeloId(), v.getModeloNombre(),
+        v.getVarianteId(),
+        v.getColorNombre(),
+        v.getCapacidadEtiqueta(),
+        null,
+        null,
+        null,
+        null,
+        null,
+        v.getPrecioBase(),
+        null,
+        v.getPrecioBase(),
+        stock,
+        false,
+        v.getCreatedAt(),
+        v.getUpdatedAt(),
+        imagenes);
   }
 }
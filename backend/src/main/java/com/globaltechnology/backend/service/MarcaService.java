@@ -3,6 +3,7 @@ package com.globaltechnology.backend.service;
 import com.globaltechnology.backend.domain.Marca;
 import com.globaltechnology.backend.repository.MarcaRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import java.util.List;
@@ -12,6 +13,7 @@ import java.util.List;
 public class MarcaService {
 
     private final MarcaRepository marcaRepository;
+    private final ApplicationEventPublisher events;
 
     @Transactional(readOnly = true)
     public List<Marca> listar() {
@@ -35,7 +37,9 @@ public class MarcaService {
     public Marca actualizar(Long id, String nombre) {
         Marca m = obtenerPorId(id);
         m.setNombre(nombre);
-        return marcaRepository.save(m);
+        m = marcaRepository.save(m);
+        events.publishEvent(CatalogoModificadoEvent.completo());
+        return m;
     }
 
     @Transactional
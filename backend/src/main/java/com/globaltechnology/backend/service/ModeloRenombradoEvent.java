@@ -0,0 +1,4 @@
+package com.globaltechnology.backend.service;
+
+public record ModeloRenombradoEvent(long modeloId, String nombre) {
+}
@@ -4,23 +4,29 @@ import com.globaltechnology.backend.domain.*;
 import com.globaltechnology.backend.repository.*;
 import com.globaltechnology.backend.web.dto.MovimientoCreateDTO;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
 import java.time.Instant;
-import java.util.Optional;
 
 @Slf4j
 @Service
 public class MovimientoInventarioService {
   private final VarianteRepository varianteRepo;
   private final MovimientoInventarioRepository movRepo;
+  private final StockService stock;
+  private final ApplicationEventPublisher events;
 
   public MovimientoInventarioService(VarianteRepository varianteRepo,
-      MovimientoInventarioRepository movRepo) {
+      MovimientoInventarioRepository movRepo,
+      StockService stock,
+      ApplicationEventPublisher events) {
     this.varianteRepo = varianteRepo;
     this.movRepo = movRepo;
+    this.stock = stock;
+    this.events = events;
   }
 
   @Transactional
@@ -43,10 +49,8 @@ public class MovimientoInventarioService {
       throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "La variante trackea unidad; use alta/baja de Unidad");
     }
 
-    int stockActual = Optional.ofNullable(movRepo.stockNoTrackeadoDeVariante(v.getId())).orElse(0);
-    long resultante = (long) stockActual + signed;
-    if (resultante < 0) {
-      throw new ResponseStatusException(HttpStatus.CONFLICT, "Stock insuficiente");
+    if (signed < 0) {
+      stock.descontar(v.getId(), -signed, null);
     }
 
     MovimientoInventario mov = MovimientoInventario.builder()
@@ -61,6 +65,10 @@ public class MovimientoInventarioService {
         .build();
 
     movRepo.save(mov);
+    if (signed > 0) {
+      stock.movimiento(v.getId(), signed);
+    }
+    events.publishEvent(CatalogoModificadoEvent.de(v.getModelo().getId()));
     log.info("Movimiento guardado ok. varianteId={}, tipo={}, qty={}", v.getId(), dto.tipo(), signed);
     return mov;
   }
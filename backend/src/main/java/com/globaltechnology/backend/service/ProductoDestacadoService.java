@@ -0,0 +1,118 @@
+package com.globaltechnology.backend.service;
+
+import com.globaltechnology.backend.domain.ProductoDestacado;
+import com.globaltechnology.backend.repository.ProductoDestacadoRepository;
+import com.globaltechnology.backend.web.dto.CatalogoItemClave;
+import com.globaltechnology.backend.web.dto.CatalogoItemResumenDTO;
+import com.globaltechnology.backend.web.dto.ProductoDestacadoCreateDTO;
+import com.globaltechnology.backend.web.dto.TipoCatalogoItem;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Service
+public class ProductoDestacadoService {
+  private final ProductoDestacadoRepository destacadoRepo;
+  private final CatalogoSnapshot snapshot;
+  private final ApplicationEventPublisher events;
+
+  private final AtomicLong generacion = new AtomicLong();
+  private volatile Cache cache;
+
+  private record Cache(long generacion, List<CatalogoItemResumenDTO> items, Set<Long> modeloIds,
+      boolean incompleto) {
+  }
+
+  public ProductoDestacadoService(ProductoDestacadoRepository destacadoRepo,
+      CatalogoSnapshot snapshot,
+      ApplicationEventPublisher events) {
+    this.destacadoRepo = destacadoRepo;
+    this.snapshot = snapshot;
+    this.events = events;
+  }
+
+  // Sin transacción propia: si hay que armar items del catálogo, sus
+  // consultas corren en paralelo (ver ConsultasParalelas).
+  public List<CatalogoItemResumenDTO> listarDestacados() {
+    var actual = cache;
+    if (actual != null && actual.generacion() == generacion.get())
+      return actual.items();
+
+    long gen = generacion.get();
+    var destacados = destacadoRepo.findAllByActivoTrueOrderByOrdenAscIdAsc();
+
+    Map<CatalogoItemClave, Integer> ordenPorClave = new HashMap<>();
+    int fallback = 1000;
+    for (var d : destacados) {
+      ordenPorClave.put(new CatalogoItemClave(d.getTipo(), d.getItemId()),
+          d.getOrden() != null ? d.getOrden() : fallback++);
+    }
+
+    var claves = new ArrayList<>(ordenPorClave.keySet());
+    claves.sort(Comparator.comparing(ordenPorClave::get));
+
+    var items = snapshot.buscar(claves);
+    var modeloIds = new HashSet<Long>();
+    items.forEach(it -> modeloIds.add(it.modeloId()));
+
+    var resumenes = items.stream().map(CatalogoItemResumenDTO::from).toList();
+    if (generacion.get() == gen) {
+      cache = new Cache(gen, resumenes, modeloIds, items.size() < claves.size());
+    }
+    return resumenes;
+  }
+
+  @Transactional
+  public void marcar(ProductoDestacadoCreateDTO dto) {
+    var existente = destacadoRepo.findByTipoAndItemId(dto.tipo(), dto.itemId())
+        .orElse(null);
+
+    if (existente == null) {
+      destacadoRepo.save(ProductoDestacado.builder()
+          .tipo(dto.tipo())
+          .itemId(dto.itemId())
+          .orden(dto.orden())
+          .activo(true)
+          .build());
+    } else {
+      existente.setActivo(true);
+      existente.setOrden(dto.orden());
+      destacadoRepo.save(existente);
+    }
+    events.publishEvent(new DestacadosModificadosEvent(dto.tipo(), dto.itemId()));
+  }
+
+  @Transactional
+  public void desmarcar(TipoCatalogoItem tipo, Long itemId) {
+    var existente = destacadoRepo.findByTipoAndItemId(tipo, itemId).orElse(null);
+    if (existente != null) {
+      existente.setActivo(false);
+      destacadoRepo.save(existente);
+      events.publishEvent(new DestacadosModificadosEvent(tipo, itemId));
+    }
+  }
+
+  @Order(Ordered.HIGHEST_PRECEDENCE)
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onDestacadosModificados(DestacadosModificadosEvent event) {
+    generacion.incrementAndGet();
+  }
+
+  @Order(Ordered.HIGHEST_PRECEDENCE)
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onCatalogoModificado(CatalogoModificadoEvent event) {
+    var actual = cache;
+    if (actual == null)
+      return;
+    if (event.esCompleto() || actual.incompleto()
+        || event.modeloIds().stream().anyMatch(actual.modeloIds()::contains)) {
+      generacion.incrementAndGet();
+    }
+  }
+}
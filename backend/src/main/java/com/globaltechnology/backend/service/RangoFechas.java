@@ -0,0 +1,31 @@
+package com.globaltechnology.backend.service;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+
+/**
+ * Rango de días del negocio pasado a instantes: {@code desde} inclusive y
+ * {@code hasta} exclusivo. Cualquiera de los dos puede faltar.
+ */
+public record RangoFechas(Instant desde, Instant hasta) {
+  public static final ZoneId ZONA = ZoneId.of("America/Argentina/Buenos_Aires");
+
+  public static final RangoFechas TODO = new RangoFechas(null, null);
+
+  public static RangoFechas de(LocalDate desde, LocalDate hasta) {
+    if (desde != null && hasta != null && hasta.isBefore(desde)) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "hasta no puede ser anterior a desde");
+    }
+    return new RangoFechas(
+        desde == null ? null : desde.atStartOfDay(ZONA).toInstant(),
+        hasta == null ? null : hasta.plusDays(1).atStartOfDay(ZONA).toInstant());
+  }
+
+  public boolean esTodo() {
+    return desde == null && hasta == null;
+  }
+}
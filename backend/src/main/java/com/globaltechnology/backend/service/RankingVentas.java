@@ -0,0 +1,109 @@
+package com.globaltechnology.backend.service;
+
+import com.globaltechnology.backend.repository.VentaItemRepository;
+import com.globaltechnology.backend.web.dto.TopModeloDTO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+
+/**
+ * Unidades vendidas por modelo en toda la historia y los {@link #TOP} más
+ * vendidos.
+ *
+ * <p>
+ * Se arma de la base al arrancar, antes de que el servidor web acepte
+ * pedidos: si una venta se confirmara mientras se lee, se contaría dos veces
+ * (en la lectura y en su evento). Después se suma cada venta confirmada
+ * ({@link VentaRegistradaEvent}). Los modelos se mantienen ordenados por
+ * unidades, así que una venta cuesta O(log n) y leer el top es devolver la
+ * lista ya armada. Las ventas no se editan ni se borran, por eso alcanza con
+ * sumar.
+ */
+@Slf4j
+@Component
+public class RankingVentas implements SmartInitializingSingleton {
+  public static final int TOP = 5;
+
+  private record Posicion(long modeloId, String nombre, long unidades) {
+  }
+
+  // Más vendidos primero; a igual cantidad, el modelo más antiguo.
+  private static final Comparator<Posicion> ORDEN = Comparator
+      .comparingLong((Posicion p) -> -p.unidades())
+      .thenComparingLong(Posicion::modeloId);
+
+  private final VentaItemRepository ventaItemRepo;
+
+  private final Object lock = new Object();
+  private final Map<Long, Posicion> porModelo = new HashMap<>();
+  private final TreeSet<Posicion> orden = new TreeSet<>(ORDEN);
+  private volatile List<TopModeloDTO> top = List.of();
+
+  public RankingVentas(VentaItemRepository ventaItemRepo) {
+    this.ventaItemRepo = ventaItemRepo;
+  }
+
+  public List<TopModeloDTO> top() {
+    return top;
+  }
+
+  // Corre antes de que arranque el servidor web, que es lo último del refresh.
+  @Override
+  public void afterSingletonsInstantiated() {
+    synchronized (lock) {
+      armar();
+    }
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onVentaRegistrada(VentaRegistradaEvent event) {
+    synchronized (lock) {
+      for (var v : event.vendidos()) {
+        var anterior = porModelo.get(v.modeloId());
+        long unidades = v.unidades() + (anterior == null ? 0 : anterior.unidades());
+        poner(anterior, new Posicion(v.modeloId(), v.nombre(), unidades));
+      }
+      publicar();
+    }
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onModeloRenombrado(ModeloRenombradoEvent event) {
+    synchronized (lock) {
+      var anterior = porModelo.get(event.modeloId());
+      if (anterior == null)
+        return;
+      poner(anterior, new Posicion(anterior.modeloId(), event.nombre(), anterior.unidades()));
+      publicar();
+    }
+  }
+
+  private void armar() {
+    for (var p : ventaItemRepo.findVentasTotalesPorModelo()) {
+      long unidades = p.getUnidadesVendidas() != null ? p.getUnidadesVendidas() : 0L;
+      poner(null, new Posicion(p.getModeloId(), p.getNombre(), unidades));
+    }
+    publicar();
+    log.info("Ranking de ventas armado: {} modelos", porModelo.size());
+  }
+
+  private void poner(Posicion anterior, Posicion actual) {
+    if (anterior != null)
+      orden.remove(anterior);
+    orden.add(actual);
+    porModelo.put(actual.modeloId(), actual);
+  }
+
+  private void publicar() {
+    var out = new ArrayList<TopModeloDTO>(TOP);
+    for (var p : orden) {
+      if (out.size() == TOP)
+        break;
+      out.add(new TopModeloDTO(p.modeloId(), p.nombre(), p.unidades()));
+    }
+    top = List.copyOf(out);
+  }
+}
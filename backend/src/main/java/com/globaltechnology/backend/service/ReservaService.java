@@ -0,0 +1,90 @@
+package com.globaltechnology.backend.service;
+
+import com.globaltechnology.backend.domain.EstadoStock;
+import com.globaltechnology.backend.repository.UnidadRepository;
+import com.globaltechnology.backend.repository.VarianteRepository;
+import com.globaltechnology.backend.web.dto.ReservaCreateDTO;
+import com.globaltechnology.backend.web.dto.ReservaDTO;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.util.List;
+
+@Service
+public class ReservaService {
+  private final Reservas reservas;
+  private final UnidadRepository unidadRepo;
+  private final VarianteRepository varianteRepo;
+  private final StockService stock;
+  private final Duration duracion;
+  private final Duration duracionMaxima;
+
+  public ReservaService(Reservas reservas,
+      UnidadRepository unidadRepo,
+      VarianteRepository varianteRepo,
+      StockService stock,
+      @Value("${app.reservas.minutos:15}") long minutos,
+      @Value("${app.reservas.minutos-max:1440}") long minutosMax) {
+    this.reservas = reservas;
+    this.unidadRepo = unidadRepo;
+    this.varianteRepo = varianteRepo;
+    this.stock = stock;
+    this.duracion = Duration.ofMinutes(minutos);
+    this.duracionMaxima = Duration.ofMinutes(minutosMax);
+  }
+
+  /**
+   * Bloquea la unidad o la fila de stock de la variante, igual que una venta,
+   * así lo que se retiene se decide contra el stock confirmado y ninguna venta
+   * simultánea pasa en el medio.
+   */
+  @Transactional
+  public ReservaDTO reservar(ReservaCreateDTO dto) {
+    var ttl = duracion(dto.minutos());
+
+    if (dto.unidadId() != null) {
+      var u = unidadRepo.findParaVentaById(dto.unidadId())
+          .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Unidad no encontrada"));
+      if (u.getEstadoStock() != EstadoStock.EN_STOCK)
+        throw new ResponseStatusException(HttpStatus.CONFLICT, "La unidad no está disponible");
+      var v = u.getVariante();
+      return toDTO(reservas.reservarUnidad(u.getId(), v.getId(), v.getModelo().getId(), u.getEstadoProducto(), ttl));
+    }
+
+    if (dto.varianteId() == null || dto.cantidad() == null || dto.cantidad() <= 0)
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Indique la unidad o la variante y una cantidad positiva");
+    var v = varianteRepo.findById(dto.varianteId())
+        .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Variante no encontrada"));
+    if (v.getModelo().isTrackeaUnidad())
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "La variante trackea unidad; reserve la unidad");
+    long enStock = stock.bloquear(v.getId()).getCantidad();
+    return toDTO(reservas.reservarCantidad(v.getId(), v.getModelo().getId(), dto.cantidad(), enStock, ttl));
+  }
+
+  public void liberar(Long id) {
+    if (reservas.liberar(id).isEmpty())
+      throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Reserva no encontrada");
+  }
+
+  public List<ReservaDTO> activas() {
+    return reservas.activas().stream().map(ReservaService::toDTO).toList();
+  }
+
+  private Duration duracion(Integer minutos) {
+    if (minutos == null)
+      return duracion;
+    var d = Duration.ofMinutes(minutos);
+    if (minutos <= 0 || d.compareTo(duracionMaxima) > 0)
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+          "minutos debe estar entre 1 y " + duracionMaxima.toMinutes());
+    return d;
+  }
+
+  private static ReservaDTO toDTO(Reservas.Reserva r) {
+    return new ReservaDTO(r.id(), r.unidadId(), r.varianteId(), r.cantidad(), r.vence());
+  }
+}
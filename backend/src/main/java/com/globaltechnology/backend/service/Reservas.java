@@ -0,0 +1,222 @@
+package com.globaltechnology.backend.service;
+
+import com.globaltechnology.backend.domain.EstadoComercial;
+import com.globaltechnology.backend.domain.VarianteStock;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+
+/**
+ * Reservas de stock con vencimiento: una unidad puntual o una cantidad de una
+ * variante que no trackea unidad, apartadas mientras dura un carrito o una
+ * venta en mostrador.
+ *
+ * <p>
+ * Viven en memoria, junto con lo reservado por variante, así que descontarlas
+ * del stock disponible no agrega consultas. Los vencimientos los lleva una
+ * {@link RuedaTemporal} que avanza una vez por segundo; la base no se consulta
+ * para saber qué venció. Al reiniciar la aplicación las reservas se pierden,
+ * que es lo mismo que si vencieran.
+ */
+@Slf4j
+@Component
+public class Reservas {
+  private static final long TICK_MILLIS = 1000;
+
+  public record Reserva(long id, Long unidadId, long varianteId, long modeloId,
+      EstadoComercial estadoProducto, int cantidad, Instant vence) {
+
+    boolean esDeUnidad() {
+      return unidadId != null;
+    }
+  }
+
+  /** Lo reservado de una variante, con la misma forma que {@link VarianteStock}. */
+  private static final class Retenido {
+    long nuevos;
+    long usados;
+    long cantidad;
+
+    boolean vacio() {
+      return nuevos == 0 && usados == 0 && cantidad == 0;
+    }
+  }
+
+  private final ApplicationEventPublisher events;
+
+  private final Map<Long, Reserva> porId = new HashMap<>();
+  private final Map<Long, RuedaTemporal.Entrada<Long>> entradas = new HashMap<>();
+  private final Map<Long, Long> porUnidad = new HashMap<>();
+  private final Map<Long, Retenido> porVariante = new HashMap<>();
+  private final RuedaTemporal<Long> rueda = new RuedaTemporal<>(TICK_MILLIS, System.currentTimeMillis());
+  private long secuencia;
+
+  public Reservas(ApplicationEventPublisher events) {
+    this.events = events;
+  }
+
+  public Reserva reservarUnidad(long unidadId, long varianteId, long modeloId, EstadoComercial estadoProducto,
+      Duration ttl) {
+    Reserva r;
+    synchronized (this) {
+      if (porUnidad.containsKey(unidadId))
+        throw new ResponseStatusException(HttpStatus.CONFLICT, "La unidad ya está reservada");
+      r = agregar(unidadId, varianteId, modeloId, estadoProducto, 1, ttl);
+    }
+    events.publishEvent(CatalogoModificadoEvent.de(modeloId));
+    return r;
+  }
+
+  /** {@code enStock} es el stock de la variante sin descontar reservas. */
+  public Reserva reservarCantidad(long varianteId, long modeloId, int cantidad, long enStock, Duration ttl) {
+    Reserva r;
+    synchronized (this) {
+      var ret = porVariante.get(varianteId);
+      if (enStock - (ret == null ? 0 : ret.cantidad) < cantidad)
+        throw new ResponseStatusException(HttpStatus.CONFLICT, "Stock insuficiente");
+      r = agregar(null, varianteId, modeloId, null, cantidad, ttl);
+    }
+    events.publishEvent(CatalogoModificadoEvent.de(modeloId));
+    return r;
+  }
+
+  public Optional<Reserva> liberar(long id) {
+    Reserva r;
+    synchronized (this) {
+      r = quitar(id);
+      if (r == null)
+        return Optional.empty();
+      rueda.cancelar(entradas.remove(id));
+    }
+    events.publishEvent(CatalogoModificadoEvent.de(r.modeloId()));
+    return Optional.of(r);
+  }
+
+  public void liberarUnidad(long unidadId) {
+    Long id;
+    synchronized (this) {
+      id = porUnidad.get(unidadId);
+    }
+    if (id != null)
+      liberar(id);
+  }
+
+  public synchronized Optional<Reserva> buscar(long id) {
+    return Optional.ofNullable(porId.get(id));
+  }
+
+  public synchronized Long reservaDeUnidad(long unidadId) {
+    return porUnidad.get(unidadId);
+  }
+
+  public synchronized Set<Long> unidadesReservadas() {
+    return Set.copyOf(porUnidad.keySet());
+  }
+
+  public synchronized List<Reserva> activas() {
+    var out = new ArrayList<>(porId.values());
+    out.sort(Comparator.comparing(Reserva::vence).thenComparingLong(Reserva::id));
+    return out;
+  }
+
+  /**
+   * Cantidad reservada de una variante que no trackea unidad, sin contar la
+   * reserva {@code propia} (la que se está por consumir).
+   */
+  public synchronized long retenido(long varianteId, Long propia) {
+    var ret = porVariante.get(varianteId);
+    long total = ret == null ? 0 : ret.cantidad;
+    var r = propia == null ? null : porId.get(propia);
+    if (r != null && !r.esDeUnidad() && r.varianteId() == varianteId)
+      total -= r.cantidad();
+    return total;
+  }
+
+  /** Stock disponible: el registrado menos lo reservado. Devuelve una copia. */
+  public synchronized VarianteStock disponible(VarianteStock s) {
+    var ret = porVariante.get(s.getVarianteId());
+    if (ret == null)
+      return s;
+    return new VarianteStock(s.getVarianteId(), s.getNuevos() - ret.nuevos, s.getUsados() - ret.usados,
+        s.getCantidad() - ret.cantidad);
+  }
+
+  /** Unidades nuevas reservadas por variante. */
+  public synchronized Map<Long, Long> nuevosReservados() {
+    var out = new HashMap<Long, Long>();
+    porVariante.forEach((id, ret) -> {
+      if (ret.nuevos > 0)
+        out.put(id, ret.nuevos);
+    });
+    return out;
+  }
+
+  // Las reservas usadas en una venta se liberan recién cuando la venta se
+  // confirma; si se revierte, siguen vigentes.
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onReservasUsadas(ReservasUsadasEvent event) {
+    for (var id : event.reservaIds()) {
+      liberar(id);
+    }
+  }
+
+  @Scheduled(fixedDelay = TICK_MILLIS)
+  public void vencer() {
+    var vencidas = new ArrayList<Reserva>();
+    synchronized (this) {
+      rueda.avanzar(System.currentTimeMillis(), id -> {
+        entradas.remove(id);
+        var r = quitar(id);
+        if (r != null)
+          vencidas.add(r);
+      });
+    }
+    if (vencidas.isEmpty())
+      return;
+    log.info("Vencieron {} reservas", vencidas.size());
+    events.publishEvent(CatalogoModificadoEvent.de(vencidas.stream().map(Reserva::modeloId).toList()));
+  }
+
+  private Reserva agregar(Long unidadId, long varianteId, long modeloId, EstadoComercial estadoProducto,
+      int cantidad, Duration ttl) {
+    var vence = Instant.now().plus(ttl);
+    var r = new Reserva(++secuencia, unidadId, varianteId, modeloId, estadoProducto, cantidad, vence);
+    porId.put(r.id(), r);
+    entradas.put(r.id(), rueda.agendar(r.id(), vence.toEpochMilli()));
+    if (unidadId != null)
+      porUnidad.put(unidadId, r.id());
+    sumar(r, 1);
+    return r;
+  }
+
+  private Reserva quitar(long id) {
+    var r = porId.remove(id);
+    if (r == null)
+      return null;
+    if (r.esDeUnidad())
+      porUnidad.remove(r.unidadId());
+    sumar(r, -1);
+    return r;
+  }
+
+  private void sumar(Reserva r, int signo) {
+    var ret = porVariante.computeIfAbsent(r.varianteId(), k -> new Retenido());
+    if (!r.esDeUnidad()) {
+      ret.cantidad += signo * r.cantidad();
+    } else if (r.estadoProducto() == EstadoComercial.USADO) {
+      ret.usados += signo;
+    } else {
+      ret.nuevos += signo;
+    }
+    if (ret.vacio())
+      porVariante.remove(r.varianteId());
+  }
+}
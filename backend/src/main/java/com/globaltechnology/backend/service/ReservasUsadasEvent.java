@@ -0,0 +1,7 @@
+package com.globaltechnology.backend.service;
+
+import java.util.Collection;
+
+/** Reservas consumidas por una venta: se liberan cuando la venta se confirma. */
+public record ReservasUsadasEvent(Collection<Long> reservaIds) {
+}
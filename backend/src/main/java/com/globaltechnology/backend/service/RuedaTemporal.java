@@ -0,0 +1,124 @@
+package com.globaltechnology.backend.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Rueda de tiempo jerárquica: agendar y cancelar cuestan O(1) y avanzar un
+ * tick solo mira la ranura de ese tick, sin importar cuántas entradas haya.
+ *
+ * <p>
+ * Cada nivel tiene {@link #RANURAS} ranuras y cada ranura de un nivel cubre
+ * una vuelta entera del nivel de abajo. Una entrada va al nivel más bajo cuyo
+ * bloque comparte con el tick actual; cuando el tick llega al comienzo de su
+ * ranura, se baja de nivel. Lo que no entra en el nivel más alto espera en un
+ * desborde que se revisa una vez por vuelta completa.
+ *
+ * <p>
+ * No es thread-safe: la sincroniza quien la usa.
+ */
+final class RuedaTemporal<T> {
+  private static final int BITS = 6;
+  private static final int RANURAS = 1 << BITS;
+  private static final int MASCARA = RANURAS - 1;
+  private static final int NIVELES = 3;
+
+  static final class Entrada<T> {
+    private final long vence;
+    private final T valor;
+    private boolean cancelada;
+
+    private Entrada(long vence, T valor) {
+      this.vence = vence;
+      this.valor = valor;
+    }
+  }
+
+  private final long tickMillis;
+  private final List<List<Entrada<T>>> ranuras;
+  private final List<Entrada<T>> desborde = new ArrayList<>();
+  private long actual;
+  private int pendientes;
+
+  RuedaTemporal(long tickMillis, long ahoraMillis) {
+    this.tickMillis = tickMillis;
+    this.actual = ahoraMillis / tickMillis;
+    this.ranuras = new ArrayList<>(NIVELES * RANURAS);
+    for (int i = 0; i < NIVELES * RANURAS; i++) {
+      ranuras.add(new ArrayList<>());
+    }
+  }
+
+  /** Agenda {@code valor} para {@code venceMillis}; si ya pasó, vence en el próximo tick. */
+  Entrada<T> agendar(T valor, long venceMillis) {
+    var e = new Entrada<>(Math.max(Math.ceilDiv(venceMillis, tickMillis), actual + 1), valor);
+    ubicar(e);
+    pendientes++;
+    return e;
+  }
+
+  /** La entrada queda en su ranura y se descarta cuando se llega a ella. */
+  void cancelar(Entrada<T> e) {
+    e.cancelada = true;
+  }
+
+  /** Avanza hasta {@code ahoraMillis} entregando lo vencido, en orden de vencimiento. */
+  void avanzar(long ahoraMillis, Consumer<T> vencido) {
+    long hasta = ahoraMillis / tickMillis;
+    while (actual < hasta) {
+      if (pendientes == 0) {
+        actual = hasta;
+        return;
+      }
+      actual++;
+      if (inicioDeBloque(NIVELES))
+        bajar(desborde);
+      for (int nivel = NIVELES - 1; nivel > 0; nivel--) {
+        if (inicioDeBloque(nivel))
+          bajar(ranura(nivel, actual));
+      }
+      var ranura = ranura(0, actual);
+      for (var e : ranura) {
+        pendientes--;
+        if (!e.cancelada)
+          vencido.accept(e.valor);
+      }
+      ranura.clear();
+    }
+  }
+
+  private boolean inicioDeBloque(int nivel) {
+    return (actual & ((1L << (BITS * nivel)) - 1)) == 0;
+  }
+
+  private List<Entrada<T>> ranura(int nivel, long tick) {
+    return ranuras.get(nivel * RANURAS + (int) ((tick >>> (BITS * nivel)) & MASCARA));
+  }
+
+  // Se copia antes de vaciar: del desborde pueden volver al desborde.
+  private void bajar(List<Entrada<T>> origen) {
+    if (origen.isEmpty())
+      return;
+    var entradas = new ArrayList<>(origen);
+    origen.clear();
+    for (var e : entradas) {
+      if (e.cancelada) {
+        pendientes--;
+      } else {
+        ubicar(e);
+      }
+    }
+  }
+
+  private void ubicar(Entrada<T> e) {
+    for (int nivel = 0; nivel < NIVELES; nivel++) {
+      int corrimiento = BITS * (nivel + 1);
+      if ((e.vence >>> corrimiento) == (actual >>> corrimiento)) {
+        ranura(nivel, e.vence).add(e);
+        return;
+      }
+    }
+    desborde.add(e);
+  }
+}
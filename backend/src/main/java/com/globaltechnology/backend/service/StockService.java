@@ -0,0 +1,190 @@
+package com.globaltechnology.backend.service;
+
+import com.globaltechnology.backend.domain.EstadoComercial;
+import com.globaltechnology.backend.domain.EstadoStock;
+import com.globaltechnology.backend.domain.VarianteStock;
+import com.globaltechnology.backend.repository.StockCorteRepository;
+import com.globaltechnology.backend.repository.VarianteStockRepository;
+import com.globaltechnology.backend.repository.VarianteStockRepository.ModeloStockRow;
+import com.globaltechnology.backend.repository.VarianteStockRepository.ValuacionNoTrackeadoRow;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.*;
+
+/**
+ * Mantiene {@link VarianteStock} en la misma transacción que cada escritura
+ * de unidades y movimientos. Los contadores se actualizan con un UPDATE
+ * relativo, así dos escrituras concurrentes sobre la misma variante no se
+ * pisan; si la variante todavía no tiene fila, se cuenta desde las tablas de
+ * origen (que ya incluyen la escritura en curso). Lo que se lee como
+ * disponible ya tiene descontadas las {@link Reservas}.
+ */
+@Slf4j
+@Service
+public class StockService {
+  private final VarianteStockRepository repo;
+  private final StockCorteRepository corteRepo;
+  private final Reservas reservas;
+
+  public StockService(VarianteStockRepository repo, StockCorteRepository corteRepo,
+      Reservas reservas) {
+    this.repo = repo;
+    this.corteRepo = corteRepo;
+    this.reservas = reservas;
+  }
+
+  @Transactional(propagation = Propagation.MANDATORY)
+  public void crearVariante(Long varianteId) {
+    repo.save(new VarianteStock(varianteId, 0, 0, 0));
+  }
+
+  @Transactional(propagation = Propagation.MANDATORY)
+  public void eliminarVariante(Long varianteId) {
+    repo.deleteById(varianteId);
+    corteRepo.deleteByVarianteId(varianteId);
+  }
+
+  @Transactional(propagation = Propagation.MANDATORY)
+  public void unidadAlta(Long varianteId, EstadoStock estadoStock, EstadoComercial estadoProducto) {
+    unidadCambiada(varianteId, null, null, estadoStock, estadoProducto);
+  }
+
+  @Transactional(propagation = Propagation.MANDATORY)
+  public void unidadBaja(Long varianteId, EstadoStock estadoStock, EstadoComercial estadoProducto) {
+    unidadCambiada(varianteId, estadoStock, estadoProducto, null, null);
+  }
+
+  @Transactional(propagation = Propagation.MANDATORY)
+  public void unidadCambiada(Long varianteId, EstadoStock stockAntes, EstadoComercial productoAntes,
+      EstadoStock stockDespues, EstadoComercial productoDespues) {
+    long nuevos = aporte(stockDespues, productoDespues, EstadoComercial.NUEVO)
+        - aporte(stockAntes, productoAntes, EstadoComercial.NUEVO);
+    long usados = aporte(stockDespues, productoDespues, EstadoComercial.USADO)
+        - aporte(stockAntes, productoAntes, EstadoComercial.USADO);
+    if (nuevos != 0 || usados != 0)
+      sumar(varianteId, nuevos, usados, 0);
+  }
+
+  @Transactional(propagation = Propagation.MANDATORY)
+  public void movimiento(Long varianteId, int cantidad) {
+    sumar(varianteId, 0, 0, cantidad);
+  }
+
+  /**
+   * Descuenta {@code cantidad} del libro de la variante solo si alcanza sin
+   * tocar lo reservado por otros ({@code reserva} es la que se está usando, o
+   * nula); si no, responde 409. Se llama antes de guardar el movimiento. El
+   * UPDATE condicional deja bloqueada la fila de la variante hasta el commit:
+   * dos ventas simultáneas de lo último que queda no pueden pasar las dos, y
+   * las de variantes distintas no se esperan entre sí.
+   */
+  @Transactional(propagation = Propagation.MANDATORY)
+  public void descontar(Long varianteId, int cantidad, Long reserva) {
+    long minimo = cantidad + reservas.retenido(varianteId, reserva);
+    if (repo.descontar(varianteId, cantidad, minimo) > 0)
+      return;
+    if (!repo.existsById(varianteId)) {
+      repo.flush();
+      repo.insertarFaltantes(varianteId);
+      if (repo.descontar(varianteId, cantidad, minimo) > 0)
+        return;
+    }
+    throw new ResponseStatusException(HttpStatus.CONFLICT, "Stock insuficiente");
+  }
+
+  /**
+   * Stock de la variante sin descontar las reservas, con su fila bloqueada
+   * hasta el commit: ninguna venta ni movimiento lo cambia mientras se decide
+   * con él.
+   */
+  @Transactional(propagation = Propagation.MANDATORY)
+  public VarianteStock bloquear(Long varianteId) {
+    var s = repo.findBloqueadaById(varianteId);
+    if (s.isPresent())
+      return s.get();
+    repo.flush();
+    repo.insertarFaltantes(varianteId);
+    return repo.findBloqueadaById(varianteId).orElseGet(() -> new VarianteStock(varianteId, 0, 0, 0));
+  }
+
+  /** Stock de la variante sin descontar las reservas. */
+  @Transactional(readOnly = true)
+  public VarianteStock registrado(Long varianteId) {
+    return repo.findById(varianteId).orElseGet(() -> new VarianteStock(varianteId, 0, 0, 0));
+  }
+
+  /** Stock disponible de la variante: el registrado menos lo reservado. */
+  @Transactional(readOnly = true)
+  public VarianteStock de(Long varianteId) {
+    return reservas.disponible(registrado(varianteId));
+  }
+
+  /** Stock disponible de cada variante pedida; las que no tienen fila no aparecen. */
+  @Transactional(readOnly = true)
+  public Map<Long, VarianteStock> de(Collection<Long> varianteIds) {
+    if (varianteIds.isEmpty())
+      return Map.of();
+    var out = new HashMap<Long, VarianteStock>(varianteIds.size() * 2);
+    for (var s : repo.findAllById(varianteIds)) {
+      out.put(s.getVarianteId(), reservas.disponible(s));
+    }
+    return out;
+  }
+
+  @Transactional(readOnly = true)
+  public Map<Long, Long> cantidades(Collection<Long> varianteIds) {
+    var out = new HashMap<Long, Long>();
+    de(varianteIds).forEach((id, s) -> out.put(id, s.getCantidad()));
+    return out;
+  }
+
+  /** Stock registrado de cada modelo (sin descontar reservas). */
+  @Transactional(readOnly = true)
+  public List<ModeloStockRow> porModelo() {
+    return repo.stockPorModelo();
+  }
+
+  @Transactional(readOnly = true)
+  public List<ModeloStockRow> porModelo(Collection<Long> modeloIds) {
+    if (modeloIds.isEmpty())
+      return List.of();
+    return repo.stockDeModelos(modeloIds);
+  }
+
+  @Transactional(readOnly = true)
+  public List<ValuacionNoTrackeadoRow> valuacionNoTrackeado() {
+    return repo.valuacionNoTrackeadoPorGrupo();
+  }
+
+  // Las variantes anteriores a la tabla (o creadas por fuera de la
+  // aplicación) se cuentan una vez al arrancar, antes de que se armen las
+  // alertas en memoria.
+  @EventListener(ApplicationReadyEvent.class)
+  @Order(Ordered.HIGHEST_PRECEDENCE)
+  @Transactional
+  public void completarFaltantes() {
+    int n = repo.insertarFaltantes(null);
+    if (n > 0)
+      log.info("Stock materializado para {} variantes", n);
+  }
+
+  private static int aporte(EstadoStock estadoStock, EstadoComercial estadoProducto, EstadoComercial cuenta) {
+    return estadoStock == EstadoStock.EN_STOCK && estadoProducto == cuenta ? 1 : 0;
+  }
+
+  private void sumar(Long varianteId, long nuevos, long usados, long cantidad) {
+    if (repo.sumar(varianteId, nuevos, usados, cantidad) == 0) {
+      repo.flush();
+      repo.insertarFaltantes(varianteId);
+    }
+  }
+}
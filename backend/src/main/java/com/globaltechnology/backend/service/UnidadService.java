@@ -1,24 +1,51 @@
 package com.globaltechnology.backend.service;
 
 import com.globaltechnology.backend.domain.*;
+import com.globaltechnology.backend.repository.MovimientoInventarioRepository;
 import com.globaltechnology.backend.repository.UnidadRepository;
 import com.globaltechnology.backend.repository.VarianteRepository;
+import com.globaltechnology.backend.repository.VentaItemRepository;
 import com.globaltechnology.backend.web.dto.*;
 import jakarta.persistence.EntityNotFoundException;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 
 @Service
 public class UnidadService {
+  private static final int MAX_COINCIDENCIAS_IMEI = 100;
+  private static final Pattern PATRON_IMEI = Pattern.compile("[0-9?]{1,20}");
+
   private final UnidadRepository repo;
   private final VarianteRepository varianteRepo;
-
-  public UnidadService(UnidadRepository repo, VarianteRepository varianteRepo) {
+  private final VentaItemRepository ventaItemRepo;
+  private final MovimientoInventarioRepository movRepo;
+  private final ImeiIndice imeiIndice;
+  private final ConsultasParalelas paralelas;
+  private final StockService stock;
+  private final Reservas reservas;
+  private final ApplicationEventPublisher events;
+
+  public UnidadService(UnidadRepository repo, VarianteRepository varianteRepo,
+      VentaItemRepository ventaItemRepo, MovimientoInventarioRepository movRepo,
+      ImeiIndice imeiIndice, ConsultasParalelas paralelas, StockService stock,
+      Reservas reservas, ApplicationEventPublisher events) {
     this.repo = repo;
     this.varianteRepo = varianteRepo;
+    this.ventaItemRepo = ventaItemRepo;
+    this.movRepo = movRepo;
+    this.imeiIndice = imeiIndice;
+    this.paralelas = paralelas;
+    this.stock = stock;
+    this.reservas = reservas;
+    this.events = events;
   }
 
   private UnidadDTO toDTO(Unidad u) {
@@ -34,6 +61,76 @@ public class UnidadService {
     return toDTO(u);
   }
 
+  /**
+   * Unidad con su estado, precio, ventas y movimientos, buscados por IMEI.
+   * Sin transacción propia: ventas y movimientos se leen en paralelo con la
+   * unidad, cada consulta con la suya (ver {@link ConsultasParalelas}).
+   */
+  public UnidadHistorialDTO historialPorImei(String imei) {
+    var imeiLimpio = imei.trim();
+    var ventasFut = paralelas.lanzar(() -> ventaItemRepo.findByUnidadImei(imeiLimpio).stream()
+        .map(i -> new UnidadVentaDTO(
+            i.getVenta().getId(),
+            i.getId(),
+            i.getVenta().getFecha(),
+            i.getVenta().getCliente() != null ? i.getVenta().getCliente().getId() : null,
+            i.getVenta().getCliente() != null ? i.getVenta().getCliente().getNombre() : null,
+            i.getPrecioUnitario(),
+            i.getDescuentoItem()))
+        .toList());
+    var movsFut = paralelas.lanzar(() -> movRepo.findByUnidadImei(imeiLimpio).stream()
+        .map(m -> new MovimientoDTO(
+            m.getId(), m.getFecha(), m.getTipo(), m.getVariante().getId(),
+            m.getUnidad().getId(), m.getCantidad(), m.getRefTipo(), m.getRefId(), m.getNotas()))
+        .toList());
+
+    var u = repo.findDetalleByImei(imeiLimpio)
+        .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Unidad no encontrada"));
+    var v = u.getVariante();
+    var override = u.getPrecioOverride();
+    return new UnidadHistorialDTO(
+        u.getId(), u.getImei(),
+        v.getId(),
+        v.getModelo().getId(), v.getModelo().getNombre(),
+        v.getColor() != null ? v.getColor().getNombre() : null,
+        v.getCapacidad() != null ? v.getCapacidad().getEtiqueta() : null,
+        u.getEstadoStock(), u.getEstadoProducto(), u.getBateriaCondicionPct(),
+        v.getPrecioBase(), override, override != null ? override : v.getPrecioBase(),
+        u.getCreatedAt(), u.getUpdatedAt(),
+        ConsultasParalelas.esperar(ventasFut),
+        ConsultasParalelas.esperar(movsFut));
+  }
+
+  /**
+   * Unidades cuyo IMEI empieza con {@code patron}; cada {@code ?} reemplaza
+   * un dígito que no se puede leer.
+   */
+  @Transactional(readOnly = true)
+  public List<ImeiCoincidenciaDTO> buscarPorImei(String patron, int limite) {
+    var p = patron == null ? "" : patron.trim();
+    if (!PATRON_IMEI.matcher(p).matches()) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+          "El patrón de IMEI admite hasta 20 dígitos o '?'");
+    }
+    if (limite <= 0 || limite > MAX_COINCIDENCIAS_IMEI) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+          "limite debe estar entre 1 y " + MAX_COINCIDENCIAS_IMEI);
+    }
+    var ids = imeiIndice.buscar(p, limite);
+    if (ids.isEmpty())
+      return List.of();
+
+    // El índice puede ir un paso atrás de la base: lo que ya no existe no sale.
+    Map<Long, UnidadRepository.ImeiCoincidenciaRow> porId = repo.findCoincidenciasImei(ids).stream()
+        .collect(Collectors.toMap(UnidadRepository.ImeiCoincidenciaRow::getUnidadId, Function.identity()));
+    return ids.stream()
+        .map(porId::get)
+        .filter(r -> r != null && r.getImei() != null)
+        .map(r -> new ImeiCoincidenciaDTO(r.getUnidadId(), r.getImei(), r.getModeloNombre(),
+            r.getColorNombre(), r.getCapacidadEtiqueta(), r.getEstadoStock(), r.getEstadoProducto()))
+        .toList();
+  }
+
   @Transactional
   public UnidadDTO create(UnidadCreateDTO dto) {
     var v = varianteRepo.findById(dto.varianteId())
@@ -66,7 +163,12 @@ public class UnidadService {
         .estadoStock(EstadoStock.EN_STOCK)
         .build();
 
-    return toDTO(repo.save(u));
+    u = repo.save(u);
+    stock.unidadAlta(v.getId(), u.getEstadoStock(), u.getEstadoProducto());
+    events.publishEvent(CatalogoModificadoEvent.de(v.getModelo().getId()));
+    if (u.getImei() != null)
+      events.publishEvent(ImeiModificadoEvent.alta(u.getId(), u.getImei()));
+    return toDTO(u);
   }
 
   @Transactional
@@ -85,6 +187,8 @@ public class UnidadService {
           "bateriaCondicionPct debe estar entre 0 y 100");
     }
 
+    var stockAntes = u.getEstadoStock();
+    var productoAntes = u.getEstadoProducto();
     if (dto.bateriaCondicionPct() != null)
       u.setBateriaCondicionPct(dto.bateriaCondicionPct());
     if (dto.precioOverride() != null)
@@ -94,14 +198,24 @@ public class UnidadService {
     if (dto.estadoProducto() != null)
       u.setEstadoProducto(dto.estadoProducto());
 
-    return toDTO(repo.save(u));
+    u = repo.save(u);
+    stock.unidadCambiada(u.getVariante().getId(), stockAntes, productoAntes, u.getEstadoStock(), u.getEstadoProducto());
+    // La reserva se tomó con el estado anterior: si cambió, ya no vale.
+    if (u.getEstadoStock() != stockAntes || u.getEstadoProducto() != productoAntes)
+      reservas.liberarUnidad(u.getId());
+    events.publishEvent(CatalogoModificadoEvent.de(u.getVariante().getModelo().getId()));
+    return toDTO(u);
   }
 
   public List<UnidadDTO> listByVariante(Long varianteId) {
     var v = varianteRepo.findById(varianteId)
         .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Variante no encontrada"));
+    var reservadas = reservas.unidadesReservadas();
     return repo.findByVarianteAndEstadoStock(v, EstadoStock.EN_STOCK)
-        .stream().map(this::toDTO).toList();
+        .stream()
+        .filter(u -> !reservadas.contains(u.getId()))
+        .map(this::toDTO)
+        .toList();
   }
 
   public List<UnidadDTO> listByVariante(Long varianteId, List<EstadoStock> estados) {
@@ -117,6 +231,11 @@ public class UnidadService {
     Unidad unidad = repo.findById(id)
         .orElseThrow(() -> new EntityNotFoundException("Unidad no encontrada"));
     repo.delete(unidad);
+    stock.unidadBaja(unidad.getVariante().getId(), unidad.getEstadoStock(), unidad.getEstadoProducto());
+    reservas.liberarUnidad(unidad.getId());
+    events.publishEvent(CatalogoModificadoEvent.de(unidad.getVariante().getModelo().getId()));
+    if (unidad.getImei() != null)
+      events.publishEvent(ImeiModificadoEvent.baja(unidad.getId(), unidad.getImei()));
   }
 
 }
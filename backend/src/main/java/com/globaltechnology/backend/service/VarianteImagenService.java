@@ -5,6 +5,7 @@ import com.globaltechnology.backend.repository.*;
 import com.globaltechnology.backend.web.dto.*;
 import jakarta.transaction.Transactional;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
@@ -20,6 +21,7 @@ public class VarianteImagenService {
 
   private final VarianteRepository varianteRepo;
   private final VarianteImagenRepository imagenRepo;
+  private final ApplicationEventPublisher events;
 
   @Value("${app.uploads.dir:/app/uploads}")
   private String uploadsDir;
@@ -35,9 +37,11 @@ public class VarianteImagenService {
 
   private static final Set<String> ALLOWED = Set.of("image/jpeg", "image/png", "image/webp", "image/avif");
 
-  public VarianteImagenService(VarianteRepository varianteRepo, VarianteImagenRepository imagenRepo) {
+  public VarianteImagenService(VarianteRepository varianteRepo, VarianteImagenRepository imagenRepo,
+      ApplicationEventPublisher events) {
     this.varianteRepo = varianteRepo;
     this.imagenRepo = imagenRepo;
+    this.events = events;
   }
 
   public VarianteImagenListDTO list(Long varianteId) {
@@ -109,11 +113,14 @@ public class VarianteImagenService {
     }
 
     imagenRepo.saveAll(nuevas);
+    events.publishEvent(CatalogoModificadoEvent.de(variante.getModelo().getId()));
     return nuevas.stream().map(VarianteImagenDTO::from).toList();
   }
 
   @Transactional
   public void deleteImage(Long imagenId) {
+    imagenRepo.findById(imagenId).ifPresent(img -> events.publishEvent(
+        CatalogoModificadoEvent.de(img.getVariante().getModelo().getId())));
     imagenRepo.deleteById(imagenId);
   }
 
@@ -185,6 +192,7 @@ public class VarianteImagenService {
     }
 
     imagenRepo.saveAll(nuevas);
+    events.publishEvent(CatalogoModificadoEvent.de(variante.getModelo().getId()));
 
     return imagenRepo.findAllByVariante_IdAndSetTipoOrderByOrdenAsc(varianteId, set)
         .stream().map(VarianteImagenDTO::from).toList();
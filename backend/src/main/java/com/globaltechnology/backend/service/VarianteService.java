@@ -4,14 +4,16 @@ import com.globaltechnology.backend.domain.*;
 import com.globaltechnology.backend.repository.*;
 import com.globaltechnology.backend.web.dto.*;
 
-import jakarta.transaction.Transactional;
-
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.math.BigDecimal;
 import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
 
 @Service
 public class VarianteService {
@@ -22,14 +24,18 @@ public class VarianteService {
   private final UnidadRepository unidadRepo;
   private final MovimientoInventarioRepository movRepo;
   private final VarianteImagenRepository varianteImagenRepo;
-
-  private static final List<EstadoStock> DISPONIBLES = List.of(EstadoStock.EN_STOCK);
+  private final StockService stock;
+  private final Reservas reservas;
+  private final ApplicationEventPublisher events;
 
   public VarianteService(VarianteRepository repo, ModeloRepository modeloRepo,
       ColorRepository colorRepo, CapacidadRepository capRepo,
       UnidadRepository unidadRepo,
       MovimientoInventarioRepository movRepo,
-      VarianteImagenRepository varianteImagenRepo) {
+      VarianteImagenRepository varianteImagenRepo,
+      StockService stock,
+      Reservas reservas,
+      ApplicationEventPublisher events) {
     this.repo = repo;
     this.modeloRepo = modeloRepo;
     this.colorRepo = colorRepo;
@@ -37,16 +43,13 @@ public class VarianteService {
     this.unidadRepo = unidadRepo;
     this.movRepo = movRepo;
     this.varianteImagenRepo = varianteImagenRepo;
+    this.stock = stock;
+    this.reservas = reservas;
+    this.events = events;
   }
 
   private long stockDeVariante(Variante v) {
-    if (v.getModelo().isTrackeaUnidad()) {
-      return unidadRepo.countByVariante_IdAndEstadoStockIn(
-          v.getId(), DISPONIBLES);
-    } else {
-      Integer s = movRepo.stockNoTrackeadoDeVariante(v.getId());
-      return (s == null ? 0L : s.longValue());
-    }
+    return stock.de(v.getId()).disponible(v.getModelo().isTrackeaUnidad());
   }
 
   private VarianteDTO toDTO(Variante v, Long stock) {
@@ -77,44 +80,43 @@ public class VarianteService {
     nuevoPrecio = nuevoPrecio.setScale(2, java.math.RoundingMode.HALF_UP);
 
     v.setPrecioBase(nuevoPrecio);
-    return repo.save(v);
+    v = repo.save(v);
+    events.publishEvent(CatalogoModificadoEvent.de(v.getModelo().getId()));
+    return v;
   }
 
-  public List<VarianteDTO> list() {
-    var variantes = repo.findAll();
-
-    var tracked = variantes.stream().filter(v -> v.getModelo().isTrackeaUnidad()).map(Variante::getId).toList();
-    var untracked = variantes.stream().filter(v -> !v.getModelo().isTrackeaUnidad()).map(Variante::getId).toList();
-
-    var stockUnidadMap = new java.util.HashMap<Long, Long>();
-    if (!tracked.isEmpty()) {
-      var rows = unidadRepo.stockPorVariante(tracked, DISPONIBLES);
-      rows.forEach(r -> stockUnidadMap.put(r.getVarianteId(), r.getStock())); // getStock() debe ser Long
+  @Transactional(readOnly = true)
+  public void list(Consumer<VarianteDTO> salida) {
+    try (var variantes = repo.streamListado()) {
+      Bloques.recorrer(variantes, bloque -> listarBloque(bloque).forEach(salida));
     }
+  }
 
-    var stockMovMap = new java.util.HashMap<Long, Long>();
-    if (!untracked.isEmpty()) {
-      var rows = movRepo.stockNoTrackeadoPorVariante(untracked);
-      rows.forEach(r -> stockMovMap.put(r.getVarianteId(), r.getStock() == null ? 0L : r.getStock().longValue()));
-    }
+  private List<VarianteDTO> listarBloque(List<VarianteRepository.VarianteListadoRow> variantes) {
+    var stockPorVariante = stock.de(variantes.stream().map(v -> v.getId()).toList());
 
     return variantes.stream()
-        .map(v -> {
-          long stock = v.getModelo().isTrackeaUnidad()
-              ? stockUnidadMap.getOrDefault(v.getId(), 0L)
-              : stockMovMap.getOrDefault(v.getId(), 0L);
-          return toDTO(v, stock);
-        })
+        .map(v -> new VarianteDTO(
+            v.getId(),
+            v.getModeloId(), v.getModeloNombre(),
+            v.getColorId(), v.getColorNombre(),
+            v.getCapacidadId(), v.getCapacidadEtiqueta(),
+            Optional.ofNullable(stockPorVariante.get(v.getId()))
+                .map(s -> s.disponible(v.isTrackeaUnidad()))
+                .orElse(0L),
+            v.getPrecioBase(),
+            v.getCreatedAt(),
+            v.getUpdatedAt()))
         .toList();
   }
 
   public VarianteDTO get(Long id) {
     var v = repo.findById(id)
         .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Variante no encontrada"));
-    long stock = stockDeVariante(v);
-    return toDTO(v, stock);
+    return toDTO(v, stockDeVariante(v));
   }
 
+  @Transactional
   public VarianteDTO create(VarianteCreateDTO dto) {
     var modelo = modeloRepo.findById(dto.modeloId())
         .orElseThrow(() -> new ResponseStatusException(HttpStatus.BAD_REQUEST, "Modelo inválido"));
@@ -161,9 +163,10 @@ public class VarianteService {
     } catch (org.springframework.dao.DataIntegrityViolationException ex) {
       throw new ResponseStatusException(HttpStatus.CONFLICT, "Variante duplicada", ex);
     }
+    stock.crearVariante(v.getId());
+    events.publishEvent(CatalogoModificadoEvent.de(modelo.getId()));
 
-    long stock = 0;
-    return toDTO(v, stock);
+    return toDTO(v, 0L);
   }
 
   public VarianteDTO update(Long id, VarianteUpdateDTO dto) {
@@ -201,19 +204,19 @@ public class VarianteService {
       }
     }
 
+    var modeloAnteriorId = v.getModelo().getId();
     v.setModelo(modelo);
     v.setColor(color);
     v.setCapacidad(cap);
     v = repo.save(v);
-    long stock = unidadRepo.countByVariante_IdAndEstadoStockIn(v.getId(), DISPONIBLES);
-    return toDTO(v, stock);
+    events.publishEvent(CatalogoModificadoEvent.de(modeloAnteriorId, modelo.getId()));
+    return toDTO(v, stockDeVariante(v));
   }
 
   @Transactional
   public void delete(Long id) {
-    if (!repo.existsById(id)) {
-      throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Variante no encontrada");
-    }
+    var v = repo.findById(id)
+        .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Variante no encontrada"));
 
     if (unidadRepo.existsByVariante_Id(id)) {
       throw new ResponseStatusException(
@@ -222,22 +225,26 @@ public class VarianteService {
     }
 
     movRepo.deleteByVariante_Id(id);
+    stock.eliminarVariante(id);
     varianteImagenRepo.deleteByVariante_Id(id);
     repo.deleteById(id);
+    events.publishEvent(CatalogoModificadoEvent.de(v.getModelo().getId()));
   }
 
   public VarianteStockDTO stock(Long id) {
     if (!repo.existsById(id))
       throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Variante no encontrada");
-    long count = unidadRepo.countByVariante_IdAndEstadoStockIn(id, DISPONIBLES);
-    return new VarianteStockDTO(id, count);
+    var s = stock.de(id);
+    return new VarianteStockDTO(id, s.getNuevos() + s.getUsados());
   }
 
   public List<UnidadDTO> unidadesDisponibles(Long id) {
     var v = repo.findById(id)
         .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Variante no encontrada"));
+    var reservadas = reservas.unidadesReservadas();
     return unidadRepo.findByVarianteAndEstadoStock(v, EstadoStock.EN_STOCK)
         .stream()
+        .filter(u -> !reservadas.contains(u.getId()))
         .map(u -> new UnidadDTO(
             u.getId(), v.getId(), u.getImei(),
             u.getBateriaCondicionPct(), u.getPrecioOverride(), u.getEstadoStock(), u.getEstadoProducto(),
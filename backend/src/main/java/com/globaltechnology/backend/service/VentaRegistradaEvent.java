@@ -0,0 +1,14 @@
+package com.globaltechnology.backend.service;
+
+import java.util.Collection;
+
+/** Unidades vendidas por modelo en una venta: se cuentan cuando la venta se confirma. */
+public record VentaRegistradaEvent(Collection<Vendido> vendidos) {
+
+  public record Vendido(long modeloId, String nombre, long unidades) {
+
+    Vendido sumar(Vendido otro) {
+      return new Vendido(modeloId, nombre, unidades + otro.unidades);
+    }
+  }
+}
@@ -4,8 +4,10 @@ import com.globaltechnology.backend.domain.*;
 import com.globaltechnology.backend.repository.*;
 import com.globaltechnology.backend.web.dto.*;
 
+import jakarta.persistence.EntityManager;
 import lombok.extern.slf4j.Slf4j;
 
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -16,8 +18,12 @@ import java.time.Instant;
 import java.time.LocalDate;
 import java.time.ZoneId;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
-import org.springframework.data.domain.Sort;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Service
@@ -28,22 +34,39 @@ public class VentaService {
   private final MovimientoInventarioRepository movRepo;
   private final ClienteRepository clienteRepo;
   private final VarianteRepository varianteRepo;
+  private final StockService stock;
+  private final Reservas reservas;
+  private final ApplicationEventPublisher events;
+  private final EntityManager em;
 
   public VentaService(VentaRepository ventaRepo, VentaItemRepository itemRepo,
       UnidadRepository unidadRepo, MovimientoInventarioRepository movRepo,
-      ClienteRepository clienteRepo, VarianteRepository varianteRepo) {
+      ClienteRepository clienteRepo, VarianteRepository varianteRepo,
+      StockService stock,
+      Reservas reservas,
+      ApplicationEventPublisher events,
+      EntityManager em) {
     this.ventaRepo = ventaRepo;
     this.itemRepo = itemRepo;
     this.unidadRepo = unidadRepo;
     this.movRepo = movRepo;
     this.clienteRepo = clienteRepo;
     this.varianteRepo = varianteRepo;
+    this.stock = stock;
+    this.reservas = reservas;
+    this.events = events;
+    this.em = em;
   }
 
   private static BigDecimal nz(BigDecimal v) {
     return v == null ? BigDecimal.ZERO : v;
   }
 
+  private static void vendido(Map<Long, VentaRegistradaEvent.Vendido> vendidos, Modelo modelo, long unidades) {
+    vendidos.merge(modelo.getId(), new VentaRegistradaEvent.Vendido(modelo.getId(), modelo.getNombre(), unidades),
+        VentaRegistradaEvent.Vendido::sumar);
+  }
+
   private VentaDTO toDTO(Venta v, List<VentaItem> items) {
     var itemsDTO = items.stream().map(it -> new VentaItemDTO(
         it.getId(),
@@ -83,6 +106,9 @@ public class VentaService {
 
       BigDecimal subtotal = BigDecimal.ZERO;
       List<VentaItem> items = new ArrayList<>();
+      var modelosAfectados = new HashSet<Long>();
+      var reservasUsadas = new ArrayList<Long>();
+      var vendidos = new HashMap<Long, VentaRegistradaEvent.Vendido>();
 
       for (var i : dto.items()) {
         final BigDecimal precio = i.precioUnitario();
@@ -91,10 +117,18 @@ public class VentaService {
 
         if (i.unidadId() != null) {
           
-          var unidad = unidadRepo.findById(i.unidadId())
+          // Bloquea la unidad: de dos ventas simultáneas solo una la ve EN_STOCK.
+          var unidad = unidadRepo.findParaVentaById(i.unidadId())
               .orElseThrow(() -> new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unidad inválida"));
           if (unidad.getEstadoStock() != EstadoStock.EN_STOCK)
             throw new ResponseStatusException(HttpStatus.CONFLICT, "La unidad no está disponible");
+          var reserva = reservas.reservaDeUnidad(unidad.getId());
+          if (reserva != null && !reserva.equals(i.reservaId()))
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "La unidad está reservada");
+          if (reserva == null && i.reservaId() != null)
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Reserva inválida");
+          if (reserva != null)
+            reservasUsadas.add(reserva);
 
           var variante = unidad.getVariante();
 
@@ -109,20 +143,25 @@ public class VentaService {
 
           itemRepo.save(item);
           items.add(item);
+          modelosAfectados.add(variante.getModelo().getId());
+          vendido(vendidos, variante.getModelo(), 1);
 
           unidad.setEstadoStock(EstadoStock.VENDIDO);
           unidadRepo.save(unidad);
+          stock.unidadCambiada(variante.getId(), EstadoStock.EN_STOCK, unidad.getEstadoProducto(),
+              EstadoStock.VENDIDO, unidad.getEstadoProducto());
 
           var mov = MovimientoInventario.builder()
               .fecha(Instant.now())
               .tipo(TipoMovimiento.VENTA)
               .variante(variante)
               .unidad(unidad)
-              .cantidad(1)
+              .cantidad(-1)
               .refTipo("venta")
               .refId(v.getId())
               .build();
           movRepo.save(mov);
+          stock.movimiento(variante.getId(), mov.getCantidad());
 
           subtotal = subtotal.add(neto);
 
@@ -134,6 +173,16 @@ public class VentaService {
 
           var variante = varianteRepo.findById(i.varianteId()) 
               .orElseThrow(() -> new ResponseStatusException(HttpStatus.BAD_REQUEST, "Variante inválida"));
+          if (variante.getModelo().isTrackeaUnidad())
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "La variante trackea unidad; indique la unidad vendida");
+
+          if (i.reservaId() != null) {
+            var reserva = reservas.buscar(i.reservaId())
+                .filter(r -> r.unidadId() == null && r.varianteId() == variante.getId())
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.BAD_REQUEST, "Reserva inválida"));
+            reservasUsadas.add(reserva.id());
+          }
+          stock.descontar(variante.getId(), i.cantidad(), i.reservaId());
 
           var item = VentaItem.builder()
               .venta(v)
@@ -146,13 +195,15 @@ public class VentaService {
 
           itemRepo.save(item);
           items.add(item);
+          modelosAfectados.add(variante.getModelo().getId());
+          vendido(vendidos, variante.getModelo(), i.cantidad());
 
           var mov = MovimientoInventario.builder()
               .fecha(Instant.now())
               .tipo(TipoMovimiento.VENTA)
               .variante(variante)
               .unidad(null)
-              .cantidad(i.cantidad()) 
+              .cantidad(-i.cantidad())
               .refTipo("venta")
               .refId(v.getId())
               .build();
@@ -169,6 +220,10 @@ public class VentaService {
       v.setTotal(total);
       v = ventaRepo.save(v);
 
+      events.publishEvent(CatalogoModificadoEvent.de(modelosAfectados));
+      events.publishEvent(new VentaRegistradaEvent(vendidos.values()));
+      if (!reservasUsadas.isEmpty())
+        events.publishEvent(new ReservasUsadasEvent(reservasUsadas));
       return toDTO(v, items);
 
     } catch (Exception e) {
@@ -178,12 +233,18 @@ public class VentaService {
   }
 
   @Transactional(readOnly = true)
-  public List<VentaDTO> listar() {
-    var ventas = ventaRepo.findAll(Sort.by(Sort.Direction.DESC, "fecha"));
-
-    return ventas.stream()
-        .map(v -> toDTO(v, itemRepo.findByVentaId(v.getId())))
-        .toList();
+  public void listar(RangoFechas rango, Consumer<VentaDTO> salida) {
+    try (var ventas = ventaRepo.streamOrdenadasPorFechaDesc(rango.desde(), rango.hasta())) {
+      Bloques.recorrer(ventas, bloque -> {
+        var ids = bloque.stream().map(Venta::getId).toList();
+        var itemsPorVenta = itemRepo.findByVentaIdIn(ids).stream()
+            .collect(Collectors.groupingBy(i -> i.getVenta().getId()));
+        for (var v : bloque) {
+          salida.accept(toDTO(v, itemsPorVenta.getOrDefault(v.getId(), List.of())));
+        }
+        em.clear();
+      });
+    }
   }
 
   @Transactional(readOnly = true)
@@ -1,73 +1,172 @@
 package com.globaltechnology.backend.web;
 
-import java.util.HashMap;
+import java.math.BigDecimal;
+import java.time.Instant;
 import java.util.List;
-import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
-import com.globaltechnology.backend.repository.ProductoDestacadoRepository;
-import com.globaltechnology.backend.service.ModeloService;
+import com.globaltechnology.backend.service.CatalogoFacetasFiltro;
+import com.globaltechnology.backend.service.CatalogoFiltro;
+import com.globaltechnology.backend.service.CatalogoSerializado;
+import com.globaltechnology.backend.service.CatalogoService;
+import com.globaltechnology.backend.service.CatalogoVersion;
+import com.globaltechnology.backend.service.ProductoDestacadoService;
+import com.globaltechnology.backend.web.dto.CatalogoFacetasDTO;
+import com.globaltechnology.backend.web.dto.CatalogoItemClave;
 import com.globaltechnology.backend.web.dto.CatalogoItemDTO;
 import com.globaltechnology.backend.web.dto.CatalogoItemResumenDTO;
+import com.globaltechnology.backend.web.dto.CatalogoPaginaDTO;
+import com.globaltechnology.backend.web.dto.OrdenCatalogo;
 import com.globaltechnology.backend.web.dto.TipoCatalogoItem;
 
 @RestController
 @RequestMapping("/api/catalogo")
 public class CatalogoController {
-  private final ModeloService modeloService;
-  private final ProductoDestacadoRepository destacadoRepo;
+  private final CatalogoService catalogoService;
+  private final ProductoDestacadoService destacadoService;
+  private final CatalogoVersion version;
+  private final CatalogoSerializado serializado;
 
   public CatalogoController(
-      ModeloService modeloService,
-      ProductoDestacadoRepository destacadoRepo) {
-    this.modeloService = modeloService;
-    this.destacadoRepo = destacadoRepo;
+      CatalogoService catalogoService,
+      ProductoDestacadoService destacadoService,
+      CatalogoVersion version,
+      CatalogoSerializado serializado) {
+    this.catalogoService = catalogoService;
+    this.destacadoService = destacadoService;
+    this.version = version;
+    this.serializado = serializado;
   }
 
   @GetMapping
-  public List<CatalogoItemResumenDTO> listar(
-      @RequestParam(required = false) TipoCatalogoItem tipo) {
-    return modeloService.listarCatalogo(tipo);
+  public ResponseEntity<byte[]> listar(
+      @RequestParam(required = false) TipoCatalogoItem tipo,
+      @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+      WebRequest request) {
+    boolean gzip = aceptaGzip(acceptEncoding);
+    if (version.noModificado(request, gzip))
+      return null;
+    var cuerpo = serializado.listado(tipo);
+    var respuesta = ResponseEntity.ok()
+        .contentType(MediaType.APPLICATION_JSON);
+    if (gzip) {
+      return respuesta.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(cuerpo.gzip());
+    }
+    return respuesta.body(cuerpo.json());
+  }
+
+  @GetMapping("/pagina")
+  public CatalogoPaginaDTO pagina(
+      @RequestParam(required = false) TipoCatalogoItem tipo,
+      @RequestParam(required = false) Long categoriaId,
+      @RequestParam(required = false) Long marcaId,
+      @RequestParam(required = false) String color,
+      @RequestParam(required = false) String capacidad,
+      @RequestParam(required = false) BigDecimal precioMin,
+      @RequestParam(required = false) BigDecimal precioMax,
+      @RequestParam(required = false) Integer bateriaMin,
+      @RequestParam(required = false) Integer bateriaMax,
+      @RequestParam(required = false) Instant creadoDesde,
+      @RequestParam(required = false) String q,
+      @RequestParam(defaultValue = "false") boolean soloEnStock,
+      @RequestParam(required = false) OrdenCatalogo orden,
+      @RequestParam(required = false) String cursor,
+      @RequestParam(defaultValue = "24") int limite,
+      WebRequest request) {
+    if (version.noModificado(request))
+      return null;
+    var filtro = new CatalogoFiltro(tipo, categoriaId, marcaId, color, capacidad,
+        precioMin, precioMax, bateriaMin, bateriaMax, creadoDesde, q, soloEnStock);
+    return catalogoService.buscarPagina(filtro, orden, cursor, limite);
+  }
+
+  @GetMapping("/buscar")
+  public List<CatalogoItemResumenDTO> buscar(
+      @RequestParam String q,
+      @RequestParam(required = false) TipoCatalogoItem tipo,
+      @RequestParam(defaultValue = "20") int limite,
+      WebRequest request) {
+    if (version.noModificado(request))
+      return null;
+    return catalogoService.buscarTexto(q, tipo, limite);
+  }
+
+  @GetMapping("/facetas")
+  public CatalogoFacetasDTO facetas(
+      @RequestParam(required = false) TipoCatalogoItem tipo,
+      @RequestParam(required = false) Set<Long> categoriaId,
+      @RequestParam(required = false) Set<Long> marcaId,
+      @RequestParam(required = false) Set<String> color,
+      @RequestParam(required = false) Set<String> capacidad,
+      @RequestParam(required = false) Set<String> precio,
+      WebRequest request) {
+    if (version.noModificado(request))
+      return null;
+    var filtro = new CatalogoFacetasFiltro(tipo, comoTexto(categoriaId), comoTexto(marcaId),
+        color, capacidad, precio);
+    return catalogoService.contarFacetas(filtro);
   }
 
   @GetMapping("/detalle")
   public CatalogoItemDTO detalle(
       @RequestParam Long itemId,
-      @RequestParam TipoCatalogoItem tipo) {
-    return modeloService.obtenerDetalleCatalogo(itemId, tipo);
+      @RequestParam TipoCatalogoItem tipo,
+      WebRequest request) {
+    if (version.noModificado(request))
+      return null;
+    return catalogoService.obtenerDetalleCatalogo(itemId, tipo);
   }
 
-  @GetMapping("/destacados")
-  public List<CatalogoItemResumenDTO> listarDestacados() {
-    var destacados = destacadoRepo.findAllByActivoTrueOrderByOrdenAscIdAsc();
-    if (destacados.isEmpty())
-      return List.of();
+  @PostMapping("/detalle/lote")
+  public List<CatalogoItemDTO> detalles(@RequestBody List<CatalogoItemClave> claves) {
+    return catalogoService.obtenerDetallesCatalogo(claves);
+  }
 
-    var catalogo = modeloService.listarCatalogo(null);
+  @GetMapping("/destacados")
+  public List<CatalogoItemResumenDTO> listarDestacados(WebRequest request) {
+    if (version.noModificado(request))
+      return null;
+    return destacadoService.listarDestacados();
+  }
 
-    Map<String, Integer> ordenPorClave = new HashMap<>();
-    int fallback = 1000;
+  private static Set<String> comoTexto(Set<Long> ids) {
+    if (ids == null)
+      return null;
+    return ids.stream().map(String::valueOf).collect(Collectors.toSet());
+  }
 
-    for (var d : destacados) {
-      String key = d.getTipo().name() + "#" + d.getItemId();
-      ordenPorClave.put(key, d.getOrden() != null ? d.getOrden() : fallback++);
+  private static boolean aceptaGzip(String acceptEncoding) {
+    if (acceptEncoding == null)
+      return false;
+    Boolean gzip = null;
+    Boolean comodin = null;
+    for (var parte : acceptEncoding.split(",")) {
+      var campos = parte.trim().split(";");
+      var codificacion = campos[0].trim();
+      boolean aceptada = true;
+      for (int i = 1; i < campos.length; i++) {
+        if (campos[i].replace(" ", "").matches("q=0(\\.0*)?"))
+          aceptada = false;
+      }
+      if (codificacion.equalsIgnoreCase("gzip")) {
+        gzip = aceptada;
+      } else if (codificacion.equals("*")) {
+        comodin = aceptada;
+      }
     }
-
-    return catalogo.stream()
-        .filter(item -> {
-          String key = item.tipo().name() + "#" + item.itemId();
-          return ordenPorClave.containsKey(key);
-        })
-        .sorted((a, b) -> {
-          String ka = a.tipo().name() + "#" + a.itemId();
-          String kb = b.tipo().name() + "#" + b.itemId();
-          return Integer.compare(ordenPorClave.get(ka), ordenPorClave.get(kb));
-        })
-        .toList();
+    return gzip != null ? gzip : Boolean.TRUE.equals(comodin);
   }
-
 }
@@ -0,0 +1,143 @@
+package com.globaltechnology.backend.web;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.*;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Exporta en CSV o NDJSON a medida que el servicio produce las filas, a
+ * través de un buffer fijo sobre la respuesta: la memoria no crece con el
+ * tamaño de la exportación.
+ */
+@Component
+public class Exportacion {
+  private static final int BUFFER = 64 * 1024;
+
+  public enum Formato {
+    CSV("text/csv", "csv"),
+    NDJSON("application/x-ndjson", "ndjson");
+
+    final String contentType;
+    final String extension;
+
+    Formato(String contentType, String extension) {
+      this.contentType = contentType;
+      this.extension = extension;
+    }
+
+    public static Formato de(String valor) {
+      try {
+        return valueOf(valor.trim().toUpperCase(Locale.ROOT));
+      } catch (IllegalArgumentException e) {
+        throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Formato inválido: " + valor);
+      }
+    }
+  }
+
+  /**
+   * Cómo se exporta cada elemento: en NDJSON va entero, una línea por
+   * elemento; en CSV puede dar una o varias filas.
+   */
+  public record Columnas<T>(List<String> encabezados, BiConsumer<T, Consumer<Object[]>> filas) {
+  }
+
+  private final ObjectWriter writer;
+
+  public Exportacion(ObjectMapper mapper) {
+    this.writer = mapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+  }
+
+  public <T> void escribir(HttpServletResponse response, Formato formato, String archivo,
+      Columnas<T> columnas, Consumer<Consumer<T>> productor) throws IOException {
+    response.setContentType(formato.contentType);
+    response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+    response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+        .filename(archivo + "." + formato.extension)
+        .build()
+        .toString());
+
+    // Igual que en JsonStreaming: ante un error no se cierra nada, para que
+    // el manejo de errores todavía pueda responder si no se escribió nada.
+    var out = new BufferedWriter(new OutputStreamWriter(response.getOutputStream(), StandardCharsets.UTF_8), BUFFER);
+    try {
+      switch (formato) {
+        case CSV -> csv(out, columnas, productor);
+        case NDJSON -> ndjson(out, productor);
+      }
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+    out.close();
+  }
+
+  private static <T> void csv(Writer out, Columnas<T> columnas, Consumer<Consumer<T>> productor) throws IOException {
+    // BOM para que las planillas lo abran como UTF-8.
+    out.write('\uFEFF');
+    fila(out, columnas.encabezados().toArray());
+    Consumer<Object[]> escribirFila = valores -> {
+      try {
+        fila(out, valores);
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    };
+    productor.accept(item -> columnas.filas().accept(item, escribirFila));
+  }
+
+  private <T> void ndjson(Writer out, Consumer<Consumer<T>> productor) throws IOException {
+    var gen = writer.createGenerator(out);
+    gen.setRootValueSeparator(null);
+    productor.accept(item -> {
+      try {
+        writer.writeValue(gen, item);
+        gen.writeRaw('\n');
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    });
+    gen.flush();
+  }
+
+  private static void fila(Writer out, Object[] valores) throws IOException {
+    for (int i = 0; i < valores.length; i++) {
+      if (i > 0)
+        out.write(',');
+      celda(out, valores[i]);
+    }
+    out.write("\r\n");
+  }
+
+  private static void celda(Writer out, Object valor) throws IOException {
+    if (valor == null)
+      return;
+    if (valor instanceof Number n) {
+      out.write(n instanceof BigDecimal bd ? bd.toPlainString() : n.toString());
+      return;
+    }
+    String s = valor.toString();
+    // Un texto que empieza como fórmula se escapa para que la planilla no lo evalúe.
+    if (!s.isEmpty() && "=+-@\t\r".indexOf(s.charAt(0)) >= 0)
+      s = "'" + s;
+    if (s.indexOf(',') < 0 && s.indexOf('"') < 0 && s.indexOf('\n') < 0 && s.indexOf('\r') < 0) {
+      out.write(s);
+      return;
+    }
+    out.write('"');
+    out.write(s.replace("\"", "\"\""));
+    out.write('"');
+  }
+}
@@ -1,25 +1,101 @@
 package com.globaltechnology.backend.web;
 
+import com.globaltechnology.backend.domain.EstadoComercial;
+import com.globaltechnology.backend.domain.EstadoStock;
+import com.globaltechnology.backend.service.CatalogoVersion;
+import com.globaltechnology.backend.service.CorteStockService;
+import com.globaltechnology.backend.service.InventarioFiltro;
 import com.globaltechnology.backend.service.InventarioService;
+import com.globaltechnology.backend.service.RangoFechas;
+import com.globaltechnology.backend.web.dto.InventarioHistoricoDTO;
+import com.globaltechnology.backend.web.dto.InventarioPaginaDTO;
 import com.globaltechnology.backend.web.dto.InventarioRowDTO;
+import com.globaltechnology.backend.web.dto.InventarioValuacionDTO;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.io.IOException;
+import java.time.LocalDate;
 import java.util.List;
 
 @RestController
 @RequestMapping("/api/inventario")
 public class InventarioController {
 
+  private static final Exportacion.Columnas<InventarioRowDTO> COLUMNAS = new Exportacion.Columnas<>(
+      List.of("modelo_id", "modelo", "variante_id", "color", "capacidad", "unidad_id", "imei", "bateria_pct",
+          "estado_producto", "estado_stock", "precio_base", "precio_override", "precio_efectivo", "stock",
+          "trackea_unidad", "creado", "actualizado"),
+      (r, fila) -> fila.accept(new Object[] {
+          r.modeloId(), r.modeloNombre(), r.varianteId(), r.colorNombre(), r.capacidadEtiqueta(),
+          r.unidadId(), r.imei(), r.bateriaCondicionPct(), r.estadoProducto(), r.estadoStock(),
+          r.precioBase(), r.precioOverride(), r.precioEfectivo(), r.stockAcumulado(),
+          r.trackeaUnidad(), r.createdAt(), r.updatedAt() }));
+
   private final InventarioService service;
+  private final JsonStreaming json;
+  private final Exportacion exportacion;
+  private final CatalogoVersion version;
+  private final CorteStockService cortes;
 
-  public InventarioController(InventarioService service) {
+  public InventarioController(InventarioService service, JsonStreaming json, Exportacion exportacion,
+      CatalogoVersion version, CorteStockService cortes) {
     this.service = service;
+    this.json = json;
+    this.exportacion = exportacion;
+    this.version = version;
+    this.cortes = cortes;
   }
 
   @GetMapping
-  public List<InventarioRowDTO> list(
+  public void list(
+      @RequestParam(required = false) Long categoriaId,
+      @RequestParam(required = false) Long marcaId,
+      HttpServletResponse response) throws IOException {
+    json.<InventarioRowDTO>escribirArray(response, salida -> service.listarInventario(categoriaId, marcaId, RangoFechas.TODO, salida));
+  }
+
+  @GetMapping("/export")
+  public void exportar(
+      @RequestParam(required = false) Long categoriaId,
+      @RequestParam(required = false) Long marcaId,
+      @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+      @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta,
+      @RequestParam(defaultValue = "csv") String formato,
+      HttpServletResponse response) throws IOException {
+    var rango = RangoFechas.de(desde, hasta);
+    exportacion.escribir(response, Exportacion.Formato.de(formato), "inventario", COLUMNAS,
+        salida -> service.listarInventario(categoriaId, marcaId, rango, salida));
+  }
+
+  @GetMapping("/valuacion")
+  public InventarioValuacionDTO valuacion(WebRequest request) {
+    if (version.noModificado(request))
+      return null;
+    return service.valuacion();
+  }
+
+  @GetMapping("/historico")
+  public InventarioHistoricoDTO historico(
+      @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fecha,
       @RequestParam(required = false) Long categoriaId,
       @RequestParam(required = false) Long marcaId) {
-    return service.listarInventario(categoriaId, marcaId);
+    return cortes.stockAl(fecha, categoriaId, marcaId);
+  }
+
+  @GetMapping("/unidades")
+  public InventarioPaginaDTO unidades(
+      @RequestParam(defaultValue = "EN_STOCK") EstadoStock estadoStock,
+      @RequestParam(required = false) EstadoComercial estadoProducto,
+      @RequestParam(required = false) Long modeloId,
+      @RequestParam(required = false) Long colorId,
+      @RequestParam(required = false) Long capacidadId,
+      @RequestParam(required = false) String imei,
+      @RequestParam(required = false) String cursor,
+      @RequestParam(defaultValue = "50") int limite) {
+    var filtro = new InventarioFiltro(estadoStock, estadoProducto, modeloId, colorId, capacidadId, imei);
+    return service.paginarUnidades(filtro, cursor, limite);
   }
 }
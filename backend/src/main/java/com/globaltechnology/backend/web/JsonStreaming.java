@@ -0,0 +1,51 @@
+package com.globaltechnology.backend.web;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+
+/**
+ * Escribe un array JSON directamente en la respuesta a medida que el servicio
+ * produce los elementos, sin armar la lista completa en memoria.
+ */
+@Component
+public class JsonStreaming {
+
+  private final ObjectWriter writer;
+
+  public JsonStreaming(ObjectMapper mapper) {
+    this.writer = mapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+  }
+
+  public <T> void escribirArray(HttpServletResponse response, Consumer<Consumer<T>> productor) throws IOException {
+    response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+    response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+
+    // Si el productor falla antes de llenar el buffer, no se cierra el
+    // generador para que el manejo de errores todavía pueda responder.
+    var gen = writer.createGenerator(response.getOutputStream(), JsonEncoding.UTF8);
+    gen.writeStartArray();
+    try {
+      productor.accept(item -> {
+        try {
+          writer.writeValue(gen, item);
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      });
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+    gen.writeEndArray();
+    gen.close();
+  }
+}
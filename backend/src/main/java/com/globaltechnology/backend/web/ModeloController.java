@@ -4,11 +4,14 @@ import com.globaltechnology.backend.service.ModeloService;
 import com.globaltechnology.backend.web.dto.ModeloCreateDTO;
 import com.globaltechnology.backend.web.dto.ModeloDTO;
 import com.globaltechnology.backend.web.dto.ModeloRenameDTO;
+import com.globaltechnology.backend.web.dto.ModeloStockMinimoDTO;
 import com.globaltechnology.backend.web.dto.ModeloTablaDTO;
 
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.*;
+import java.io.IOException;
 import java.util.List;
 
 @RestController
@@ -16,9 +19,11 @@ import java.util.List;
 
 public class ModeloController {
   private final ModeloService service;
+  private final JsonStreaming json;
 
-  public ModeloController(ModeloService service) {
+  public ModeloController(ModeloService service, JsonStreaming json) {
     this.service = service;
+    this.json = json;
   }
 
   @GetMapping
@@ -33,9 +38,10 @@ public class ModeloController {
   }
 
   @GetMapping("/tabla")
-  public List<ModeloTablaDTO> tabla(@RequestParam(required = false) Long categoriaId,
-      @RequestParam(required = false) Long marcaId) {
-    return service.tablaProductos(categoriaId, marcaId);
+  public void tabla(@RequestParam(required = false) Long categoriaId,
+      @RequestParam(required = false) Long marcaId,
+      HttpServletResponse response) throws IOException {
+    json.<ModeloTablaDTO>escribirArray(response, salida -> service.tablaProductos(categoriaId, marcaId, salida));
   }
 
   @PostMapping
@@ -49,6 +55,11 @@ public class ModeloController {
     return service.rename(id, dto);
   }
 
+  @PatchMapping("/{id}/stock-minimo")
+  public ModeloDTO stockMinimo(@PathVariable Long id, @Valid @RequestBody ModeloStockMinimoDTO dto) {
+    return service.actualizarStockMinimo(id, dto);
+  }
+
   @DeleteMapping("/{id}")
   @ResponseStatus(HttpStatus.NO_CONTENT)
   public void delete(@PathVariable Long id) {
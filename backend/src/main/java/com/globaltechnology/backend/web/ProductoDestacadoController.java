@@ -7,8 +7,7 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
-import com.globaltechnology.backend.domain.ProductoDestacado;
-import com.globaltechnology.backend.repository.ProductoDestacadoRepository;
+import com.globaltechnology.backend.service.ProductoDestacadoService;
 import com.globaltechnology.backend.web.dto.ProductoDestacadoCreateDTO;
 import com.globaltechnology.backend.web.dto.TipoCatalogoItem;
 
@@ -16,38 +15,20 @@ import com.globaltechnology.backend.web.dto.TipoCatalogoItem;
 @RequestMapping("/api/catalogo/destacados")
 public class ProductoDestacadoController {
 
-  private final ProductoDestacadoRepository destacadoRepo;
+  private final ProductoDestacadoService destacadoService;
 
-  public ProductoDestacadoController(ProductoDestacadoRepository destacadoRepo) {
-    this.destacadoRepo = destacadoRepo;
+  public ProductoDestacadoController(ProductoDestacadoService destacadoService) {
+    this.destacadoService = destacadoService;
   }
 
   @PostMapping
   public void marcarDestacado(@RequestBody ProductoDestacadoCreateDTO dto) {
-    var existente = destacadoRepo.findByTipoAndItemId(dto.tipo(), dto.itemId())
-        .orElse(null);
-
-    if (existente == null) {
-      destacadoRepo.save(ProductoDestacado.builder()
-          .tipo(dto.tipo())
-          .itemId(dto.itemId())
-          .orden(dto.orden())
-          .activo(true)
-          .build());
-    } else {
-      existente.setActivo(true);
-      existente.setOrden(dto.orden());
-      destacadoRepo.save(existente);
-    }
+    destacadoService.marcar(dto);
   }
 
   @DeleteMapping
   public void desmarcarDestacado(@RequestParam TipoCatalogoItem tipo,
       @RequestParam Long itemId) {
-    var existente = destacadoRepo.findByTipoAndItemId(tipo, itemId).orElse(null);
-    if (existente != null) {
-      existente.setActivo(false);
-      destacadoRepo.save(existente);
-    }
+    destacadoService.desmarcar(tipo, itemId);
   }
 }
@@ -1,21 +1,31 @@
 package com.globaltechnology.backend.web;
 
+import com.globaltechnology.backend.service.AlertasStock;
 import com.globaltechnology.backend.service.ProductoStatsService;
 import com.globaltechnology.backend.web.dto.ProductoStatsDTO;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 @RestController
 @RequestMapping("/api/productos")
 public class ProductoStatsController {
 
   private final ProductoStatsService service;
+  private final AlertasStock alertas;
 
-  public ProductoStatsController(ProductoStatsService service) {
+  public ProductoStatsController(ProductoStatsService service, AlertasStock alertas) {
     this.service = service;
+    this.alertas = alertas;
   }
 
   @GetMapping("/stats")
   public ProductoStatsDTO stats() {
     return service.stats();
   }
+
+  @GetMapping(value = "/alertas/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+  public SseEmitter alertas() {
+    return alertas.suscribir();
+  }
 }
@@ -0,0 +1,37 @@
+package com.globaltechnology.backend.web;
+
+import com.globaltechnology.backend.service.ReservaService;
+import com.globaltechnology.backend.web.dto.ReservaCreateDTO;
+import com.globaltechnology.backend.web.dto.ReservaDTO;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/reservas")
+public class ReservaController {
+
+  private final ReservaService service;
+
+  public ReservaController(ReservaService service) {
+    this.service = service;
+  }
+
+  @GetMapping
+  public List<ReservaDTO> activas() {
+    return service.activas();
+  }
+
+  @PostMapping
+  @ResponseStatus(HttpStatus.CREATED)
+  public ReservaDTO reservar(@RequestBody ReservaCreateDTO dto) {
+    return service.reservar(dto);
+  }
+
+  @DeleteMapping("/{id}")
+  @ResponseStatus(HttpStatus.NO_CONTENT)
+  public void liberar(@PathVariable Long id) {
+    service.liberar(id);
+  }
+}
@@ -22,6 +22,18 @@ public class UnidadController {
     return service.get(id);
   }
 
+  @GetMapping("/imei/{imei}")
+  public UnidadHistorialDTO porImei(@PathVariable String imei) {
+    return service.historialPorImei(imei);
+  }
+
+  @GetMapping("/imei")
+  public List<ImeiCoincidenciaDTO> buscarPorImei(
+      @RequestParam String patron,
+      @RequestParam(defaultValue = "20") int limite) {
+    return service.buscarPorImei(patron, limite);
+  }
+
   @PostMapping
   @ResponseStatus(HttpStatus.CREATED)
   public UnidadDTO create(@Valid @RequestBody UnidadCreateDTO dto) {
@@ -3,11 +3,13 @@ package com.globaltechnology.backend.web;
 import com.globaltechnology.backend.domain.Variante;
 import com.globaltechnology.backend.service.VarianteService;
 import com.globaltechnology.backend.web.dto.*;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
 
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.*;
+import java.io.IOException;
 import java.util.List;
 
 @Slf4j
@@ -15,14 +17,16 @@ import java.util.List;
 @RequestMapping("/api/variantes")
 public class VarianteController {
   private final VarianteService service;
+  private final JsonStreaming json;
 
-  public VarianteController(VarianteService service) {
+  public VarianteController(VarianteService service, JsonStreaming json) {
     this.service = service;
+    this.json = json;
   }
 
   @GetMapping
-  public List<VarianteDTO> list() {
-    return service.list();
+  public void list(HttpServletResponse response) throws IOException {
+    json.<VarianteDTO>escribirArray(response, service::list);
   }
 
   @GetMapping("/{id}")
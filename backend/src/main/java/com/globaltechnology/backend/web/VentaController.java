@@ -1,24 +1,50 @@
 package com.globaltechnology.backend.web;
 
+import com.globaltechnology.backend.service.RangoFechas;
 import com.globaltechnology.backend.service.VentaService;
 import com.globaltechnology.backend.web.dto.VentaCreateDTO;
 import com.globaltechnology.backend.web.dto.VentaDTO;
 import com.globaltechnology.backend.web.dto.VentasStatsDTO;
 
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 
+import java.io.IOException;
+import java.time.LocalDate;
 import java.util.List;
 
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.*;
 
 @RestController
 @RequestMapping("/api/ventas")
 public class VentaController {
+  // Una fila por item; los datos de la venta se repiten en cada una.
+  private static final Exportacion.Columnas<VentaDTO> COLUMNAS = new Exportacion.Columnas<>(
+      List.of("venta_id", "fecha", "cliente_id", "cliente", "descuento_total", "total", "observaciones",
+          "item_id", "modelo", "variante_id", "unidad_id", "cantidad", "precio_unitario", "descuento_item"),
+      (v, fila) -> {
+        if (v.items() == null || v.items().isEmpty()) {
+          fila.accept(new Object[] { v.id(), v.fecha(), v.clienteId(), v.clienteNombre(), v.descuentoTotal(),
+              v.total(), v.observaciones(), null, null, null, null, null, null, null });
+          return;
+        }
+        for (var i : v.items()) {
+          fila.accept(new Object[] { v.id(), v.fecha(), v.clienteId(), v.clienteNombre(), v.descuentoTotal(),
+              v.total(), v.observaciones(), i.id(), i.modeloNombre(), i.varianteId(), i.unidadId(),
+              i.cantidad(), i.precioUnitario(), i.descuentoItem() });
+        }
+      });
+
   private final VentaService service;
+  private final JsonStreaming json;
+  private final Exportacion exportacion;
 
-  public VentaController(VentaService service) {
+  public VentaController(VentaService service, JsonStreaming json, Exportacion exportacion) {
     this.service = service;
+    this.json = json;
+    this.exportacion = exportacion;
   }
 
   @PostMapping
@@ -28,8 +54,19 @@ public class VentaController {
   }
 
   @GetMapping
-  public List<VentaDTO> listar() {
-    return service.listar();
+  public void listar(HttpServletResponse response) throws IOException {
+    json.<VentaDTO>escribirArray(response, salida -> service.listar(RangoFechas.TODO, salida));
+  }
+
+  @GetMapping("/export")
+  public void exportar(
+      @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+      @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta,
+      @RequestParam(defaultValue = "csv") String formato,
+      HttpServletResponse response) throws IOException {
+    var rango = RangoFechas.de(desde, hasta);
+    exportacion.escribir(response, Exportacion.Formato.de(formato), "ventas", COLUMNAS,
+        salida -> service.listar(rango, salida));
   }
 
   @GetMapping("/stats")
@@ -0,0 +1,10 @@
+package com.globaltechnology.backend.web.dto;
+
+public record AlertaStockDTO(
+    Long modeloId,
+    String nombre,
+    long stock,
+    long umbral,
+    NivelStock nivel,
+    NivelStock anterior
+) {}
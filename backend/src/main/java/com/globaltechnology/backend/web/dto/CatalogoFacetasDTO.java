@@ -0,0 +1,12 @@
+package com.globaltechnology.backend.web.dto;
+
+import java.util.List;
+
+public record CatalogoFacetasDTO(
+    int total,
+    List<FacetaValorDTO> categorias,
+    List<FacetaValorDTO> marcas,
+    List<FacetaValorDTO> colores,
+    List<FacetaValorDTO> capacidades,
+    List<FacetaValorDTO> precios
+) {}
@@ -0,0 +1,12 @@
+package com.globaltechnology.backend.web.dto;
+
+import jakarta.validation.constraints.NotNull;
+
+public record CatalogoItemClave(
+    @NotNull TipoCatalogoItem tipo,
+    @NotNull Long itemId
+) {
+  public static CatalogoItemClave de(CatalogoItemDTO item) {
+    return new CatalogoItemClave(item.tipo(), item.itemId());
+  }
+}
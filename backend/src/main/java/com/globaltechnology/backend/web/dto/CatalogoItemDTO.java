@@ -1,6 +1,7 @@
 package com.globaltechnology.backend.web.dto;
 
 import java.math.BigDecimal;
+import java.time.Instant;
 import java.util.List;
 
 public record CatalogoItemDTO(
@@ -29,5 +30,7 @@ public record CatalogoItemDTO(
         List<String> coloresEnStock,
         List<VarianteOpcionCatalogoDTO> variantesEnStock,
 
-        List<VarianteImagenDTO> imagenes) {
+        List<VarianteImagenDTO> imagenes,
+
+        Instant createdAt) {
 }
@@ -12,4 +12,20 @@ public record CatalogoItemResumenDTO(
         BigDecimal precio,
         String imagenUrl 
 ) {
+    public static CatalogoItemResumenDTO from(CatalogoItemDTO item) {
+        String imagenUrl = null;
+        if (item.imagenes() != null && !item.imagenes().isEmpty()) {
+            imagenUrl = item.imagenes().get(0).url();
+        }
+
+        return new CatalogoItemResumenDTO(
+                item.itemId(),
+                item.modeloNombre(),
+                item.color(),
+                item.capacidad(),
+                item.bateriaCondicionPct(),
+                item.tipo(),
+                item.precio(),
+                imagenUrl);
+    }
 }
@@ -0,0 +1,8 @@
+package com.globaltechnology.backend.web.dto;
+
+import java.util.List;
+
+public record CatalogoPaginaDTO(
+    List<CatalogoItemResumenDTO> items,
+    String siguienteCursor
+) {}
@@ -0,0 +1,8 @@
+package com.globaltechnology.backend.web.dto;
+
+public record FacetaValorDTO(
+    String valor,
+    String etiqueta,
+    int cantidad,
+    boolean seleccionado
+) {}
@@ -0,0 +1,14 @@
+package com.globaltechnology.backend.web.dto;
+
+import com.globaltechnology.backend.domain.EstadoComercial;
+import com.globaltechnology.backend.domain.EstadoStock;
+
+public record ImeiCoincidenciaDTO(
+        Long unidadId,
+        String imei,
+        String modeloNombre,
+        String colorNombre,
+        String capacidadEtiqueta,
+        EstadoStock estadoStock,
+        EstadoComercial estadoProducto) {
+}
@@ -0,0 +1,11 @@
+package com.globaltechnology.backend.web.dto;
+
+import java.time.Instant;
+import java.util.List;
+
+public record InventarioHistoricoDTO(
+        Instant fecha,
+        Instant corte,
+        long unidades,
+        List<VarianteStockHistoricoDTO> variantes) {
+}
@@ -0,0 +1,11 @@
+package com.globaltechnology.backend.web.dto;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+public record InventarioValuacionDTO(
+        long unidades,
+        BigDecimal valorBase,
+        BigDecimal valorEfectivo,
+        List<ValuacionGrupoDTO> grupos) {
+}
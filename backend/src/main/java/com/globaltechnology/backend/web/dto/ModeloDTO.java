@@ -9,5 +9,6 @@ public record ModeloDTO(
     String nombre,
     boolean trackeaUnidad,
     boolean requiereColor,
-    boolean requiereCapacidad
+    boolean requiereCapacidad,
+    Integer stockMinimo
 ) {}
@@ -0,0 +1,6 @@
+package com.globaltechnology.backend.web.dto;
+
+import jakarta.validation.constraints.Min;
+
+/** Sin {@code stockMinimo} vuelve al umbral general. */
+public record ModeloStockMinimoDTO(@Min(0) Integer stockMinimo) {}
@@ -0,0 +1,5 @@
+package com.globaltechnology.backend.web.dto;
+
+public enum NivelStock {
+  NORMAL, BAJO, SIN_STOCK
+}
@@ -0,0 +1,7 @@
+package com.globaltechnology.backend.web.dto;
+
+public enum OrdenCatalogo {
+  NOMBRE,
+  PRECIO_ASC,
+  PRECIO_DESC
+}
@@ -0,0 +1,13 @@
+package com.globaltechnology.backend.web.dto;
+
+/**
+ * Una unidad ({@code unidadId}) o una cantidad de una variante que no trackea
+ * unidad ({@code varianteId} y {@code cantidad}). Sin {@code minutos}, dura
+ * lo que indique la configuración.
+ */
+public record ReservaCreateDTO(
+    Long unidadId,
+    Long varianteId,
+    Integer cantidad,
+    Integer minutos
+) {}
@@ -0,0 +1,11 @@
+package com.globaltechnology.backend.web.dto;
+
+import java.time.Instant;
+
+public record ReservaDTO(
+        Long id,
+        Long unidadId,
+        Long varianteId,
+        int cantidad,
+        Instant vence) {
+}
@@ -0,0 +1,28 @@
+package com.globaltechnology.backend.web.dto;
+
+import com.globaltechnology.backend.domain.EstadoComercial;
+import com.globaltechnology.backend.domain.EstadoStock;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+
+public record UnidadHistorialDTO(
+        Long unidadId,
+        String imei,
+        Long varianteId,
+        Long modeloId,
+        String modeloNombre,
+        String colorNombre,
+        String capacidadEtiqueta,
+        EstadoStock estadoStock,
+        EstadoComercial estadoProducto,
+        Integer bateriaCondicionPct,
+        BigDecimal precioBase,
+        BigDecimal precioOverride,
+        BigDecimal precioEfectivo,
+        Instant createdAt,
+        Instant updatedAt,
+        List<UnidadVentaDTO> ventas,
+        List<MovimientoDTO> movimientos) {
+}
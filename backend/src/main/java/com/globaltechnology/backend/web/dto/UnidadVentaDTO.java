@@ -0,0 +1,14 @@
+package com.globaltechnology.backend.web.dto;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+public record UnidadVentaDTO(
+        Long ventaId,
+        Long ventaItemId,
+        Instant fecha,
+        Long clienteId,
+        String clienteNombre,
+        BigDecimal precioUnitario,
+        BigDecimal descuentoItem) {
+}
@@ -0,0 +1,17 @@
+package com.globaltechnology.backend.web.dto;
+
+import com.globaltechnology.backend.domain.EstadoComercial;
+
+import java.math.BigDecimal;
+
+public record ValuacionGrupoDTO(
+        Long categoriaId,
+        String categoriaNombre,
+        Long marcaId,
+        String marcaNombre,
+        EstadoComercial estadoProducto,
+        boolean trackeaUnidad,
+        long unidades,
+        BigDecimal valorBase,
+        BigDecimal valorEfectivo) {
+}
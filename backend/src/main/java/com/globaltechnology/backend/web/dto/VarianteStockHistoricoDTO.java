@@ -0,0 +1,11 @@
+package com.globaltechnology.backend.web.dto;
+
+public record VarianteStockHistoricoDTO(
+        Long varianteId,
+        Long modeloId,
+        String modeloNombre,
+        String colorNombre,
+        String capacidadEtiqueta,
+        boolean trackeaUnidad,
+        long stock) {
+}
@@ -7,5 +7,6 @@ public record VentaItemCreateDTO(
     Long varianteId,   
     Integer cantidad,   
     BigDecimal precioUnitario,
-    BigDecimal descuentoItem
+    BigDecimal descuentoItem,
+    Long reservaId
 ) {}
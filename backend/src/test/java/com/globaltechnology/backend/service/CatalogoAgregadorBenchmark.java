@@ -0,0 +1,329 @@
+package com.globaltechnology.backend.service;
+
+import com.globaltechnology.backend.domain.*;
+import com.globaltechnology.backend.repository.UnidadRepository.VarianteCatalogoAggRow;
+import com.globaltechnology.backend.web.dto.CatalogoItemDTO;
+import com.globaltechnology.backend.web.dto.TipoCatalogoItem;
+import com.globaltechnology.backend.web.dto.VarianteImagenDTO;
+import com.globaltechnology.backend.web.dto.VarianteOpcionCatalogoDTO;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.*;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Compara {@link CatalogoAgregador} con la agregación anterior, que recorría
+ * trackeados y no trackeados por separado con claves {@code "color|capacidad"}.
+ * Ambos reciben los mismos datos en memoria, así que se mide sólo el armado
+ * del catálogo, sin consultas.
+ *
+ * <p>
+ * No entra en {@code mvn test}; se corre con {@code mvn test -Pbenchmark}.
+ * Informa por log ms y bytes asignados por armado; los bytes se miden en el
+ * hilo actual, por eso el caso que los informa queda debajo de
+ * {@link CatalogoAgregador#UMBRAL_PARALELO}.
+ */
+@Slf4j
+@Tag("benchmark")
+class CatalogoAgregadorBenchmark {
+  private static final int CALENTAMIENTO = 200;
+  private static final int MEDICIONES = 500;
+
+  private static final com.sun.management.ThreadMXBean HILOS =
+      (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+  @Test
+  void secuencial() {
+    comparar(new Datos(400), true);
+  }
+
+  @Test
+  void paralelo() {
+    comparar(new Datos(4000), false);
+  }
+
+  private static void comparar(Datos d, boolean medirBytes) {
+    Supplier<List<CatalogoItemDTO>> actual = () -> new CatalogoAgregador(
+        d.variantes, d.usados, d.sellado, Map.of(), d.noTrackeado, d.imagenes).armar(d.modelos);
+    Supplier<List<CatalogoItemDTO>> previa = () -> anterior(
+        d.modelos, d.variantes, d.usados, d.sellado, d.noTrackeado, d.imagenes);
+
+    // Sólo se compara lo que ya existía: createdAt es nuevo en el agregador.
+    assertEquals(sinFecha(previa.get()), sinFecha(actual.get()));
+
+    var antes = medir(previa, medirBytes);
+    var ahora = medir(actual, medirBytes);
+    log.info("{} modelos, {} items: anterior {}, agregador {}, anterior/agregador x{}",
+        d.modelos.size(), actual.get().size(), antes, ahora, String.format("%.2f", antes.ms / ahora.ms));
+  }
+
+  private static Medicion medir(Supplier<List<CatalogoItemDTO>> armado, boolean medirBytes) {
+    long sumidero = 0;
+    for (int i = 0; i < CALENTAMIENTO; i++) {
+      sumidero += armado.get().size();
+    }
+    long bytes0 = HILOS.getCurrentThreadAllocatedBytes();
+    long t0 = System.nanoTime();
+    for (int i = 0; i < MEDICIONES; i++) {
+      sumidero += armado.get().size();
+    }
+    long t1 = System.nanoTime();
+    long bytes1 = HILOS.getCurrentThreadAllocatedBytes();
+    if (sumidero == 0)
+      throw new IllegalStateException("armado vacío");
+    return new Medicion((t1 - t0) / 1e6 / MEDICIONES,
+        medirBytes ? (bytes1 - bytes0) / MEDICIONES : -1);
+  }
+
+  private record Medicion(double ms, long bytes) {
+    @Override
+    public String toString() {
+      return bytes < 0
+          ? String.format("%.3f ms/op", ms)
+          : String.format("%.3f ms/op, %d KB/op", ms, bytes / 1024);
+    }
+  }
+
+  private static List<List<Object>> sinFecha(List<CatalogoItemDTO> items) {
+    return items.stream()
+        .map(i -> Arrays.<Object>asList(i.itemId(), i.modeloId(), i.tipo(), i.color(), i.capacidad(),
+            i.precio(), i.enStock(), i.stockTotal(), i.coloresEnStock(), i.variantesEnStock(),
+            i.imagenes()))
+        .toList();
+  }
+
+  /**
+   * Catálogo sintético: la mitad de los modelos trackea unidades, cada modelo
+   * tiene 3 colores x 2 capacidades, algunos quedan sin stock y los
+   * trackeados suman usados.
+   */
+  private static final class Datos {
+    final List<Modelo> modelos = new ArrayList<>();
+    final List<Variante> variantes = new ArrayList<>();
+    final List<Unidad> usados = new ArrayList<>();
+    final Map<Long, VarianteCatalogoAggRow> sellado = new HashMap<>();
+    final Map<Long, Long> noTrackeado = new HashMap<>();
+    final Map<Long, Map<ImagenSet, List<VarianteImagenDTO>>> imagenes = new HashMap<>();
+
+    Datos(int cantidad) {
+      var categoria = Categoria.builder().id(1L).nombre("Celulares").build();
+      var marcas = List.of(
+          Marca.builder().id(1L).nombre("Apple").build(),
+          Marca.builder().id(2L).nombre("Samsung").build());
+      var colores = List.of(
+          Color.builder().id(1L).nombre("Negro").build(),
+          Color.builder().id(2L).nombre("Azul").build(),
+          Color.builder().id(3L).nombre("Blanco").build());
+      var capacidades = List.of(
+          Capacidad.builder().id(1L).etiqueta("128GB").build(),
+          Capacidad.builder().id(2L).etiqueta("256GB").build());
+      var rnd = new Random(42);
+      long varianteId = 1, unidadId = 1, imagenId = 1;
+
+      for (long id = 1; id <= cantidad; id++) {
+        var m = Modelo.builder()
+            .id(id)
+            .categoria(categoria)
+            .marca(marcas.get((int) (id % marcas.size())))
+            .nombre("Modelo " + rnd.nextInt(cantidad))
+            .trackeaUnidad(id % 2 == 0)
+            .build();
+        modelos.add(m);
+        boolean sinStock = id % 10 == 0;
+
+        for (var color : colores) {
+          for (var capacidad : capacidades) {
+            var v = Variante.builder()
+                .id(varianteId++)
+                .modelo(m)
+                .color(color)
+                .capacidad(capacidad)
+                .precioBase(BigDecimal.valueOf(100_000 + rnd.nextInt(900_000)))
+                .build();
+            variantes.add(v);
+            long stock = sinStock ? 0 : rnd.nextInt(4);
+
+            if (m.isTrackeaUnidad()) {
+              if (stock > 0)
+                sellado.put(v.getId(), new Fila(v.getId(), stock, v.getPrecioBase()));
+              if (!sinStock && rnd.nextInt(3) == 0) {
+                usados.add(Unidad.builder()
+                    .id(unidadId++)
+                    .variante(v)
+                    .estadoProducto(EstadoComercial.USADO)
+                    .bateriaCondicionPct(80 + rnd.nextInt(20))
+                    .build());
+              }
+            } else {
+              noTrackeado.put(v.getId(), stock);
+            }
+
+            var set = m.isTrackeaUnidad() ? ImagenSet.SELLADO : ImagenSet.CATALOGO;
+            imagenes.put(v.getId(), Map.of(set, List.of(
+                new VarianteImagenDTO(imagenId++, set, "/img/" + v.getId() + ".jpg", null, 0, true))));
+          }
+        }
+      }
+    }
+  }
+
+  private record Fila(Long varianteId, long stock, BigDecimal precioMin) implements VarianteCatalogoAggRow {
+    @Override
+    public Long getVarianteId() {
+      return varianteId;
+    }
+
+    @Override
+    public EstadoComercial getEstadoProducto() {
+      return EstadoComercial.NUEVO;
+    }
+
+    @Override
+    public long getStock() {
+      return stock;
+    }
+
+    @Override
+    public BigDecimal getPrecioMin() {
+      return precioMin;
+    }
+
+    @Override
+    public Instant getUltimoIngreso() {
+      return null;
+    }
+  }
+
+  // ---- Agregación anterior (ModeloService.buildCatalogo), sin las consultas ----
+  // Sólo lo que se mide: claves "color|capacidad" en LinkedHashMap y
+  // toLowerCase en cada comparación.
+
+  private static final Comparator<CatalogoItemDTO> ORDEN_ANTERIOR = Comparator
+      .comparing((CatalogoItemDTO dto) -> minusculas(dto.modeloNombre()))
+      .thenComparing(dto -> dto.tipo().name())
+      .thenComparing(dto -> minusculas(dto.color()))
+      .thenComparing(dto -> dto.itemId() == null ? 0L : dto.itemId());
+
+  private static String minusculas(String s) {
+    return s == null ? "" : s.toLowerCase();
+  }
+
+  private static List<CatalogoItemDTO> anterior(List<Modelo> modelos, List<Variante> variantes,
+      List<Unidad> usados, Map<Long, VarianteCatalogoAggRow> sellado, Map<Long, Long> noTrackeado,
+      Map<Long, Map<ImagenSet, List<VarianteImagenDTO>>> imagenes) {
+    var out = new ArrayList<CatalogoItemDTO>();
+    var selladoPorModelo = new HashMap<Long, Agg>();
+    var noTrackPorModelo = new HashMap<Long, Agg>();
+
+    for (var v : variantes) {
+      var m = v.getModelo();
+      if (m.isTrackeaUnidad()) {
+        var row = sellado.get(v.getId());
+        if (row != null && row.getStock() > 0)
+          selladoPorModelo.computeIfAbsent(m.getId(), id -> new Agg(m))
+              .sumar(v, row.getStock(), row.getPrecioMin(), imagenes, ImagenSet.SELLADO);
+      } else {
+        noTrackPorModelo.computeIfAbsent(m.getId(), id -> new Agg(m))
+            .sumar(v, noTrackeado.getOrDefault(v.getId(), 0L), v.getPrecioBase(), imagenes, ImagenSet.CATALOGO);
+      }
+    }
+
+    for (var u : usados) {
+      var v = u.getVariante();
+      var efectivo = u.getPrecioOverride() != null ? u.getPrecioOverride() : v.getPrecioBase();
+      out.add(item(u.getId(), v.getModelo(), TipoCatalogoItem.TRACKED_USADO_UNIDAD, nombre(v.getColor()),
+          etiqueta(v.getCapacidad()), u.getBateriaCondicionPct(), efectivo, true, 1L, List.of(), List.of(),
+          imagenes.getOrDefault(v.getId(), Map.of()).getOrDefault(ImagenSet.USADO, List.of())));
+    }
+    agregados(out, selladoPorModelo.values(), TipoCatalogoItem.TRACKED_SELLADO_AGREGADO);
+    agregados(out, noTrackPorModelo.values(), TipoCatalogoItem.NO_TRACK_AGREGADO);
+
+    var conStock = new HashSet<Long>();
+    out.forEach(i -> conStock.add(i.modeloId()));
+    for (var m : modelos) {
+      if (!conStock.contains(m.getId())) {
+        var tipo = m.isTrackeaUnidad() ? TipoCatalogoItem.TRACKED_SELLADO_AGREGADO : TipoCatalogoItem.NO_TRACK_AGREGADO;
+        out.add(item(m.getId(), m, tipo, null, null, null, null, false, 0L, List.of(), List.of(), List.of()));
+      }
+    }
+    out.sort(ORDEN_ANTERIOR);
+    return out;
+  }
+
+  private static void agregados(List<CatalogoItemDTO> out, Collection<Agg> aggs, TipoCatalogoItem tipo) {
+    for (var agg : aggs) {
+      if (agg.stockTotal <= 0)
+        continue;
+      var opciones = agg.opciones.values().stream()
+          .map(o -> new VarianteOpcionCatalogoDTO(o.color, o.capacidad, o.stock))
+          .toList();
+      out.add(item(agg.modelo.getId(), agg.modelo, tipo, null, null, null, agg.precioMin, true, agg.stockTotal,
+          new ArrayList<>(agg.colores), opciones, agg.imagenes));
+    }
+  }
+
+  private static CatalogoItemDTO item(Long itemId, Modelo m, TipoCatalogoItem tipo, String color, String capacidad,
+      Integer bateria, BigDecimal precio, boolean enStock, long stock, List<String> colores,
+      List<VarianteOpcionCatalogoDTO> opciones, List<VarianteImagenDTO> imagenes) {
+    return new CatalogoItemDTO(itemId, m.getId(), m.getNombre(), m.getCategoria().getId(),
+        m.getCategoria().getNombre(), m.getMarca().getId(), m.getMarca().getNombre(), tipo, color, capacidad,
+        bateria, precio, enStock, stock, colores, opciones, imagenes, null);
+  }
+
+  private static String nombre(Color c) {
+    return c != null ? c.getNombre() : null;
+  }
+
+  private static String etiqueta(Capacidad c) {
+    return c != null ? c.getEtiqueta() : null;
+  }
+
+  private static class Agg {
+    final Modelo modelo;
+    long stockTotal;
+    BigDecimal precioMin;
+    List<VarianteImagenDTO> imagenes = List.of();
+    final Set<String> colores = new LinkedHashSet<>();
+    final Map<String, Opcion> opciones = new LinkedHashMap<>();
+
+    Agg(Modelo modelo) {
+      this.modelo = modelo;
+    }
+
+    void sumar(Variante v, long stock, BigDecimal precio, Map<Long, Map<ImagenSet, List<VarianteImagenDTO>>> imagenes,
+        ImagenSet set) {
+      if (stock > 0) {
+        stockTotal += stock;
+        String color = nombre(v.getColor());
+        String cap = etiqueta(v.getCapacidad());
+        if (color != null)
+          colores.add(color);
+        opciones.computeIfAbsent((color != null ? color : "_") + "|" + (cap != null ? cap : "_"),
+            k -> new Opcion(color, cap)).stock += stock;
+      }
+      if (precio != null && (precioMin == null || precio.compareTo(precioMin) < 0))
+        precioMin = precio;
+      var imgs = imagenes.getOrDefault(v.getId(), Map.of()).getOrDefault(set, List.of());
+      if (this.imagenes.isEmpty() && !imgs.isEmpty())
+        this.imagenes = new ArrayList<>(imgs);
+    }
+  }
+
+  private static class Opcion {
+    final String color;
+    final String capacidad;
+    long stock;
+
+    Opcion(String color, String capacidad) {
+      this.color = color;
+      this.capacidad = capacidad;
+    }
+  }
+}
@@ -0,0 +1,65 @@
+package com.globaltechnology.backend.service;
+
+import com.globaltechnology.backend.web.dto.CatalogoItemDTO;
+import com.globaltechnology.backend.web.dto.FacetaValorDTO;
+import com.globaltechnology.backend.web.dto.TipoCatalogoItem;
+import com.globaltechnology.backend.web.dto.VarianteOpcionCatalogoDTO;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CatalogoFacetasTest {
+
+  // El primer item tiene una opción con color y sin capacidad.
+  private final CatalogoFacetas facetas = CatalogoFacetas.de(List.of(
+      item(1L, "Funda", new VarianteOpcionCatalogoDTO("Azul", null, 2),
+          new VarianteOpcionCatalogoDTO("Negro", "128GB", 1)),
+      item(2L, "Cargador", new VarianteOpcionCatalogoDTO("Azul", "256GB", 3))));
+
+  @Test
+  void opcionSinCapacidadNoRompeElConteoDeColores() {
+    var dto = facetas.contar(filtro(Set.of(), Set.of("128GB")));
+
+    assertEquals(1, dto.total());
+    assertEquals(Map.of("Azul", 0, "Negro", 1), cantidades(dto.colores()));
+  }
+
+  @Test
+  void opcionSinCapacidadNoCuentaParaNingunaCapacidad() {
+    var dto = facetas.contar(filtro(Set.of("Azul"), Set.of()));
+
+    assertEquals(2, dto.total());
+    assertEquals(Map.of("128GB", 0, "256GB", 1), cantidades(dto.capacidades()));
+  }
+
+  @Test
+  void colorYCapacidadTienenQueSerDeLaMismaOpcion() {
+    var dto = facetas.contar(filtro(Set.of("Azul"), Set.of("128GB")));
+
+    assertEquals(0, dto.total());
+  }
+
+  private static CatalogoFacetasFiltro filtro(Set<String> colores, Set<String> capacidades) {
+    return new CatalogoFacetasFiltro(null, null, null, colores, capacidades, null);
+  }
+
+  private static Map<String, Integer> cantidades(List<FacetaValorDTO> valores) {
+    return valores.stream().collect(Collectors.toMap(FacetaValorDTO::valor, FacetaValorDTO::cantidad));
+  }
+
+  private static CatalogoItemDTO item(Long modeloId, String nombre, VarianteOpcionCatalogoDTO... opciones) {
+    long stock = 0;
+    for (var o : opciones) {
+      stock += o.stock();
+    }
+    return new CatalogoItemDTO(modeloId, modeloId, nombre, 1L, "Accesorios", 1L, "Genérica",
+        TipoCatalogoItem.NO_TRACK_AGREGADO, null, null, null, new BigDecimal("20.00"), true, stock,
+        List.of(), List.of(opciones), List.of(), null);
+  }
+}
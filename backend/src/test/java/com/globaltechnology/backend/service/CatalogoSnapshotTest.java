@@ -0,0 +1,74 @@
+package com.globaltechnology.backend.service;
+
+import com.globaltechnology.backend.repository.UnidadRepository;
+import com.globaltechnology.backend.web.dto.CatalogoItemClave;
+import com.globaltechnology.backend.web.dto.CatalogoItemDTO;
+import com.globaltechnology.backend.web.dto.TipoCatalogoItem;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CatalogoSnapshotTest {
+
+  private final ModeloService modelos = mock(ModeloService.class);
+  private final UnidadRepository unidades = mock(UnidadRepository.class);
+  private final CatalogoSnapshot snapshot = new CatalogoSnapshot(modelos, unidades);
+
+  @Test
+  void detalleEnFrioArmaSoloSuModeloYLanzaElArmadoCompleto() {
+    when(modelos.construirCatalogo(Set.of(2L))).thenReturn(List.of(item(2L, "iPhone 14")));
+    when(unidades.findModeloIdsByUnidadIdIn(any())).thenReturn(List.of());
+
+    var items = snapshot.buscar(List.of(new CatalogoItemClave(TipoCatalogoItem.NO_TRACK_AGREGADO, 2L)));
+
+    assertEquals(List.of(2L), items.stream().map(CatalogoItemDTO::modeloId).toList());
+    verify(modelos, timeout(1000)).construirCatalogo(isNull());
+  }
+
+  @Test
+  void siFallaElArmadoCompletoSeReintentaEnLaProximaLectura() {
+    when(modelos.construirCatalogo(isNull()))
+        .thenThrow(new IllegalStateException("db caída"))
+        .thenReturn(List.of(item(1L, "iPhone 13")));
+
+    assertThrows(IllegalStateException.class, snapshot::vista);
+
+    assertEquals(List.of(1L), modeloIds(snapshot.vista()));
+  }
+
+  @Test
+  void siFallaElParcheElModeloSigueSucio() {
+    when(modelos.construirCatalogo(isNull()))
+        .thenReturn(List.of(item(1L, "iPhone 13"), item(2L, "iPhone 14")));
+    snapshot.vista();
+
+    when(modelos.construirCatalogo(any()))
+        .thenThrow(new IllegalStateException("db caída"))
+        .thenReturn(List.of());
+    snapshot.invalidarModelos(Set.of(2L));
+
+    assertThrows(IllegalStateException.class, snapshot::vista);
+
+    assertEquals(List.of(1L), modeloIds(snapshot.vista()));
+  }
+
+  private static List<Long> modeloIds(CatalogoSnapshot.Vista vista) {
+    return vista.columnas().items().stream().map(CatalogoItemDTO::modeloId).toList();
+  }
+
+  private static CatalogoItemDTO item(Long modeloId, String nombre) {
+    return new CatalogoItemDTO(modeloId, modeloId, nombre, 1L, "Celulares", 1L, "Apple",
+        TipoCatalogoItem.NO_TRACK_AGREGADO, null, null, null, null, false, 0L,
+        List.of(), List.of(), List.of(), null);
+  }
+}
@@ -0,0 +1,107 @@
+package com.globaltechnology.backend.service;
+
+import com.globaltechnology.backend.domain.Marca;
+import com.globaltechnology.backend.domain.TipoMovimiento;
+import com.globaltechnology.backend.repository.MarcaRepository;
+import com.globaltechnology.backend.web.dto.*;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.web.server.ResponseStatusException;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Ventas simultáneas de una variante no trackeada contra Postgres real: el
+ * UPDATE condicional de {@link StockService#descontar} tiene que dejar pasar
+ * exactamente el stock que hay y rechazar el resto con 409, sin que el stock
+ * materializado ni el libro de movimientos queden negativos.
+ */
+@SpringBootTest
+@Testcontainers(disabledWithoutDocker = true)
+class VentaServiceConcurrenciaTest {
+  private static final int STOCK = 5;
+  private static final int VENTAS = 40;
+
+  @Container
+  @ServiceConnection
+  static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+  @Autowired
+  VentaService ventas;
+  @Autowired
+  CategoriaService categorias;
+  @Autowired
+  MarcaRepository marcas;
+  @Autowired
+  ModeloService modelos;
+  @Autowired
+  VarianteService variantes;
+  @Autowired
+  MovimientoInventarioService movimientos;
+  @Autowired
+  JdbcTemplate jdbc;
+
+  @Test
+  void ventasSimultaneasNoVendenMasQueElStock() throws Exception {
+    var categoria = categorias.create(new CategoriaCreateDTO("Accesorios"));
+    var marca = marcas.save(Marca.builder().nombre("Genérica").build());
+    var modelo = modelos.create(new ModeloCreateDTO(categoria.id(), marca.getId(), "Cargador 20W", false, false, false));
+    var variante = variantes.create(new VarianteCreateDTO(modelo.id(), null, null, true, new BigDecimal("20.00")));
+    movimientos.crearMovimiento(new MovimientoCreateDTO(variante.id(), TipoMovimiento.ENTRADA, STOCK, null, null, null));
+
+    var venta = new VentaCreateDTO(null,
+        List.of(new VentaItemCreateDTO(null, variante.id(), 1, new BigDecimal("20.00"), null, null)),
+        null, null);
+
+    var largada = new CountDownLatch(1);
+    var exitosas = new AtomicInteger();
+    var sinStock = new AtomicInteger();
+    var pool = Executors.newFixedThreadPool(VENTAS);
+    try {
+      var tareas = new ArrayList<Future<?>>();
+      for (int i = 0; i < VENTAS; i++) {
+        tareas.add(pool.submit(() -> {
+          largada.await();
+          try {
+            ventas.crearYConfirmar(venta);
+            exitosas.incrementAndGet();
+          } catch (ResponseStatusException e) {
+            if (e.getStatusCode() != HttpStatus.CONFLICT)
+              throw e;
+            sinStock.incrementAndGet();
+          }
+          return null;
+        }));
+      }
+      largada.countDown();
+      for (var t : tareas) {
+        t.get(60, TimeUnit.SECONDS);
+      }
+    } finally {
+      pool.shutdownNow();
+    }
+
+    assertEquals(STOCK, exitosas.get());
+    assertEquals(VENTAS - STOCK, sinStock.get());
+    assertEquals(0L, jdbc.queryForObject(
+        "select cantidad from variante_stock where variante_id = ?", Long.class, variante.id()));
+    assertEquals(0L, jdbc.queryForObject(
+        "select coalesce(sum(cantidad), 0) from movimientos_inventario where variante_id = ?",
+        Long.class, variante.id()));
+    assertEquals((long) STOCK, jdbc.queryForObject(
+        "select count(*) from ventas_items where variante_id = ?", Long.class, variante.id()));
+  }
+}
@@ -8,10 +8,10 @@ import {
   useBreakpointValue,
 } from "@chakra-ui/react";
 import { MenuMobile } from "./MenuMobile";
-import { useState, useEffect } from "react";
+import { useState, useRef } from "react";
 import { Link, useNavigate } from "react-router-dom";
 import { SearchIcon } from "@chakra-ui/icons";
-import { fetchProductosCatalogo } from "../lib/productos";
+import { buscarProductosCatalogo } from "../lib/productos";
 import type { Producto } from "../types";
 
 const Navbar = () => {
@@ -19,23 +19,9 @@ const Navbar = () => {
   const isMobile = useBreakpointValue({ base: true, md: false });
   const [searchVisible, setSearchVisible] = useState(false);
   const [searchText, setSearchText] = useState("");
-  const [productos, setProductos] = useState<Producto[]>([]);
   const [resultados, setResultados] = useState<Producto[]>([]);
   const [loadingProductos, setLoadingProductos] = useState(false);
-
-  useEffect(() => {
-    (async () => {
-      try {
-        setLoadingProductos(true);
-        const all = await fetchProductosCatalogo();
-        setProductos(all);
-      } catch (e) {
-        console.error("Error cargando productos para búsqueda", e);
-      } finally {
-        setLoadingProductos(false);
-      }
-    })();
-  }, []);
+  const ultimaBusqueda = useRef(0);
 
   const toggleSearch = () => {
     setSearchVisible((prev) => !prev);
@@ -46,7 +32,7 @@ const Navbar = () => {
     }
   };
 
-  const handleSearchChange = (e: React.ChangeEvent<HTMLInputElement>) => {
+  const handleSearchChange = async (e: React.ChangeEvent<HTMLInputElement>) => {
     const valor = e.target.value;
 
     const regex = /^[a-zA-Z0-9áéíóúÁÉÍÓÚñÑ\s]*$/;
@@ -55,23 +41,23 @@ const Navbar = () => {
 
     setSearchText(valor);
 
-    const texto = valor.trim().toLowerCase();
+    const texto = valor.trim();
+    const busqueda = ++ultimaBusqueda.current;
 
     if (texto.length < 2) {
       setResultados([]);
       return;
     }
 
-    const coincidencias = productos.filter((p) => {
-      const modelo = p.modeloNombre?.toLowerCase() ?? "";
-      const capacidad = p.capacidad?.toLowerCase() ?? "";
-      return (
-        modelo.includes(texto) ||
-        capacidad.includes(texto)
-      );
-    });
-
-    setResultados(coincidencias);
+    try {
+      setLoadingProductos(true);
+      const coincidencias = await buscarProductosCatalogo(texto);
+      if (busqueda === ultimaBusqueda.current) setResultados(coincidencias);
+    } catch (e) {
+      console.error("Error buscando productos", e);
+    } finally {
+      if (busqueda === ultimaBusqueda.current) setLoadingProductos(false);
+    }
   };
 
   const handleSeleccionProducto = (producto: Producto) => {
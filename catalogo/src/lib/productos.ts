@@ -12,6 +12,16 @@ export async function fetchProductosCatalogo(
   return data;
 }
 
+export async function buscarProductosCatalogo(
+  q: string,
+  limite = 20
+): Promise<Producto[]> {
+  const { data } = await api.get<Producto[]>('/catalogo/buscar', {
+    params: { q, limite },
+  });
+  return data;
+}
+
 export async function fetchCatalogoDestacados(): Promise<Producto[]> {
   const { data } = await api.get<Producto[]>('/catalogo/destacados');
   return data;